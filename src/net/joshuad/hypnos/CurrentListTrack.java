@@ -104,14 +104,13 @@ public class CurrentListTrack extends Track {
 	@Override
 	public void refreshTagData() {
 		super.refreshTagData();
-		for (Track track : Hypnos.getLibrary().getTrackData()) {
-			if (track.equals(this)) {
-				track.refreshTagData();
-				if(track.getAlbum() != null) {
-					track.getAlbum().updateData();
-				}
-				this.setAlbum(track.getAlbum());
+		Track track = Hypnos.getLibrary().getTrack(getPath());
+		if (track != null) {
+			track.refreshTagData();
+			if(track.getAlbum() != null) {
+				track.getAlbum().updateData();
 			}
+			this.setAlbum(track.getAlbum());
 		}
 	}
 
@@ -146,6 +146,7 @@ public class Hypnos extends Application {
 	private static PrintStream originalErr;
 	
 	private static LoaderSpeed loaderSpeed = LoaderSpeed.HIGH;
+	private static int loaderThreads = getDefaultLoaderThreads();
 	
 	private static ByteArrayOutputStream logBuffer; //Used to store log info until log file is initialized
 	
@@ -235,6 +236,36 @@ public class Hypnos extends Application {
 		ui.setLoaderSpeedDisplay ( speed );
 	}
 	
+	public static int getLoaderThreads ( ) {
+		return loaderThreads;
+	}
+	
+	public static void setLoaderThreads ( int threads ) {
+		loaderThreads = Math.max( 1, threads );
+	}
+	
+	public static int getDefaultLoaderThreads ( ) {
+		return Math.max( 1, Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+	}
+	
+	private static void applyLoaderSettings ( EnumMap <Setting, String> pendingSettings ) {
+		if ( pendingSettings.containsKey( Setting.LOADER_SPEED ) ) {
+			Hypnos.setLoaderSpeed( LoaderSpeed.valueOf( pendingSettings.get( Setting.LOADER_SPEED ) ) );
+			pendingSettings.remove( Setting.LOADER_SPEED );
+		} else {
+			Hypnos.setLoaderSpeed(LoaderSpeed.HIGH);
+		}
+		
+		if ( pendingSettings.containsKey( Setting.LOADER_THREADS ) ) {
+			try {
+				Hypnos.setLoaderThreads( Integer.parseInt( pendingSettings.get( Setting.LOADER_THREADS ) ) );
+				pendingSettings.remove( Setting.LOADER_THREADS );
+			} catch ( NumberFormatException e ) {
+				LOGGER.log( Level.INFO, "Unable to parse loader thread count, using default.", e );
+			}
+		}
+	}
+	
 	private static void startLogToBuffer() {
 		originalOut = System.out;
 		originalErr = System.err;
@@ -741,12 +772,7 @@ public class Hypnos extends Application {
 						persister.loadCurrentList();
 						ui.applySettingsBeforeWindowShown( pendingSettings );
 						
-						if ( pendingSettings.containsKey( Setting.LOADER_SPEED ) ) {
-							Hypnos.setLoaderSpeed( LoaderSpeed.valueOf( pendingSettings.get( Setting.LOADER_SPEED ) ) );
-							pendingSettings.remove( Setting.LOADER_SPEED );
-						} else {
-							Hypnos.setLoaderSpeed(LoaderSpeed.HIGH);
-						}
+						applyLoaderSettings( pendingSettings );
 
 						ui.setLibraryLabelsToLoading();
 						ui.showMainWindow();
@@ -815,12 +841,7 @@ public class Hypnos extends Application {
 						
 						thisTaskStart = System.currentTimeMillis();
 						audioSystem.applySettings ( pendingSettings );
-						if ( pendingSettings.containsKey( Setting.LOADER_SPEED ) ) {
-							Hypnos.setLoaderSpeed( LoaderSpeed.valueOf( pendingSettings.get( Setting.LOADER_SPEED ) ) );
-							pendingSettings.remove( Setting.LOADER_SPEED );
-						} else {
-							Hypnos.setLoaderSpeed(LoaderSpeed.HIGH);
-						}
+						applyLoaderSettings( pendingSettings );
 						ui.applySettingsBeforeWindowShown( pendingSettings );
 						ui.applySettingsAfterWindowShown( pendingSettings );
 						persister.logUnusedSettings ( pendingSettings );
@@ -18,7 +18,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.logging.Level;
@@ -48,7 +47,7 @@ public class Persister {
 		ART_CURRENT_SPLIT_PERCENT, ART_SPLIT_PERCENT, WINDOW_X_POSITION, WINDOW_Y_POSITION, 
 		WINDOW_WIDTH, WINDOW_HEIGHT, TRACK, TRACK_POSITION, TRACK_NUMBER, VOLUME,
 		PROMPT_BEFORE_OVERWRITE, SHOW_INOTIFY_ERROR_POPUP, SHOW_UPDATE_AVAILABLE_IN_MAIN_WINDOW, 
-		SHOW_SYSTEM_TRAY_ICON, CLOSE_TO_SYSTEM_TRAY, MINIMIZE_TO_SYSTEM_TRAY, THEME, LOADER_SPEED,
+		SHOW_SYSTEM_TRAY_ICON, CLOSE_TO_SYSTEM_TRAY, MINIMIZE_TO_SYSTEM_TRAY, THEME, LOADER_SPEED, LOADER_THREADS,
 		DEFAULT_SHUFFLE_ALBUMS, DEFAULT_SHUFFLE_TRACKS, DEFAULT_SHUFFLE_PLAYLISTS,
 		DEFAULT_REPEAT_ALBUMS,  DEFAULT_REPEAT_TRACKS,  DEFAULT_REPEAT_PLAYLISTS,
 		
@@ -232,10 +231,9 @@ public class Persister {
 		    ArrayList <Track> tracks = (ArrayList <Track>) dataIn.readObject();
 		    library.setDataOnInitialLoad ( tracks, albums );
 		    if ( audioSystem.getCurrentTrack() != null ) {
-			    for ( Track track : library.getTrackData() ) {
-			    	if ( track.equals(audioSystem.getCurrentTrack()) ) {
-			    		audioSystem.getCurrentTrack().setAlbum(track.getAlbum());
-			    	}
+			    Track track = library.getTrack( audioSystem.getCurrentTrack().getPath() );
+			    if ( track != null ) {
+			    	audioSystem.getCurrentTrack().setAlbum( track.getAlbum() );
 			    }
 		    }
 		} catch ( Exception e ) {
@@ -251,9 +249,9 @@ public class Persister {
 				if ( playlist != null ) {
 					playlist.setHasUnsavedData( false );
 					playlists.add( playlist );
-					library.linkPlaylistToLibrary(playlist);
 				}
 			}
+			library.linkPlaylistsToLibrary( playlists );
 			library.setDataOnInitialLoad( playlists );
 
 		} catch ( IOException e ) {
@@ -391,8 +389,8 @@ public class Persister {
 			ByteArrayOutputStream byteWriter = new ByteArrayOutputStream();
 			ObjectOutputStream bytesOut = new ObjectOutputStream( byteWriter );
 
-			bytesOut.writeObject( new ArrayList <Album>( Arrays.asList( library.getAlbumData().toArray( new Album [ library.getAlbumData().size() ] ) ) ) );
-			bytesOut.writeObject( new ArrayList <Track>( Arrays.asList( library.getTrackData().toArray( new Track [ library.getTrackData().size() ] ) ) ) );
+			bytesOut.writeObject( new ArrayList <Album>( library.getAlbumData() ) );
+			bytesOut.writeObject( new ArrayList <Track>( library.getTrackData() ) );
 
 			compressedOut.write( byteWriter.toByteArray() );
 			compressedOut.flush();
@@ -523,6 +521,7 @@ public class Persister {
 			} );
 			
 			settingsOut.printf( "%s: %s%s", Setting.LOADER_SPEED, Hypnos.getLoaderSpeed(), System.lineSeparator() );
+			settingsOut.printf( "%s: %s%s", Setting.LOADER_THREADS, Hypnos.getLoaderThreads(), System.lineSeparator() );
 
 			settingsOut.flush();
 			settingsOut.close();
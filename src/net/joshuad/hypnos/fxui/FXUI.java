@@ -14,7 +14,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Level;
@@ -1790,22 +1792,54 @@ public class FXUI implements PlayerListener {
 		currentListPane.infoLabelAndFilter.setText ( string );
 	}
 	
-	/* Give it a source for the UI change so only that source can set it to standby
-	 * Avoiding overlapping modifications issues w/ threads terminating after other ones start */
-	private Object statusSource = null;
+	/* Each source keeps its own status until it goes to standby, so scans running at the same 
+	 * time (one per drive) don't overwrite each other. Only touched on the FX thread. */
+	private final Map <Object, LoaderStatus> loaderStatuses = new LinkedHashMap <> ();
+	
+	private static class LoaderStatus {
+		final String message;
+		final double percentDone;
+		
+		LoaderStatus ( String message, double percentDone ) {
+			this.message = message;
+			this.percentDone = percentDone;
+		}
+	}
+	
 	public void setLibraryLoaderStatus ( String message, double percentDone, Object source ) {
 		Platform.runLater( () -> {
-			this.libraryLocationWindow.setLoaderStatus ( message, percentDone );
-			statusSource = source;
+			loaderStatuses.put( source, new LoaderStatus ( message, percentDone ) );
+			showLoaderStatus();
 		});		
 	}
 
 	//The programmer can send a null source in if he wants to force a standby status
 	public void setLibraryLoaderStatusToStandby ( Object source ) {
-		if ( statusSource == null || source == null || statusSource == source ) {
-			Platform.runLater( () -> {
-				this.libraryLocationWindow.setLibraryLoaderStatusToStandby ( );
-			});	
+		Platform.runLater( () -> {
+			if ( source == null ) {
+				loaderStatuses.clear();
+			} else {
+				loaderStatuses.remove( source );
+			}
+			showLoaderStatus();
+		});	
+	}
+	
+	private void showLoaderStatus () {
+		if ( loaderStatuses.isEmpty() ) {
+			this.libraryLocationWindow.setLibraryLoaderStatusToStandby ( );
+		} else if ( loaderStatuses.size() == 1 ) {
+			LoaderStatus status = loaderStatuses.values().iterator().next();
+			this.libraryLocationWindow.setLoaderStatus ( status.message, status.percentDone );
+		} else {
+			double totalPercent = 0;
+			boolean indeterminate = false;
+			for ( LoaderStatus status : loaderStatuses.values() ) {
+				indeterminate |= status.percentDone < 0;
+				totalPercent += status.percentDone;
+			}
+			double percentDone = indeterminate ? -1 : totalPercent / loaderStatuses.size();
+			this.libraryLocationWindow.setLoaderStatus ( "Scanning " + loaderStatuses.size() + " locations...", percentDone );
 		}
 	}
 
@@ -182,6 +182,11 @@ public class Album implements Serializable, AlbumInfoSource {
 		return compareTo.getPath().toAbsolutePath().equals(this.getPath().toAbsolutePath());
 	}
 
+	@Override
+	public int hashCode() {
+		return getPath().toAbsolutePath().hashCode();
+	}
+
 	public Image getAlbumCoverImage() {
 		for (Track track : tracks) {
 			if (track.getAlbumCoverImage() != null) {
@@ -0,0 +1,218 @@
+package net.joshuad.hypnos.library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import javafx.application.Platform;
+
+// Keeps the artist list up to date by filing albums and loose tracks under their album artist
+// as they are added, removed or retagged, rather than rebuilding every artist from scratch.
+// The filing is done here on the upkeep thread, but an Artist's own lists are bound to the UI,
+// so the changes to them are handed to the FX thread in one batch per update.
+class ArtistIndex {
+	private final CachedList<Artist> artists;
+	private final Map<String, Artist> artistsByName = new HashMap<>();
+	// By identity, since a rescan can replace an item with an equal one at the same path
+	private final Map<Album, Artist> albumArtists = new IdentityHashMap<>();
+	private final Map<Track, Artist> looseTrackArtists = new IdentityHashMap<>();
+	// How many albums and loose tracks are filed under each artist, by our own bookkeeping, since
+	// the artist's lists may not have caught up yet
+	private final Map<Artist, Integer> filedCounts = new IdentityHashMap<>();
+	private List<Runnable> artistChanges = new ArrayList<>();
+
+	private final Set<Album> pendingAlbums = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Track> pendingTracks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	ArtistIndex(CachedList<Artist> artists) {
+		this.artists = artists;
+	}
+
+	synchronized void queueUpdate(Album album) {
+		pendingAlbums.add(album);
+	}
+
+	synchronized void queueUpdate(Track track) {
+		pendingTracks.add(track);
+	}
+
+	synchronized List<Artist> setDataOnInitialLoad(List<Track> tracks, List<Album> albums) {
+		pendingAlbums.clear();
+		pendingTracks.clear();
+		artistsByName.clear();
+		albumArtists.clear();
+		looseTrackArtists.clear();
+		filedCounts.clear();
+		artistChanges.clear();
+		// These artists aren't published yet, so they can be filled in directly
+		List<Artist> retMe = new ArrayList<>();
+		for (Album album : albums) {
+			Artist artist = file(album.getAlbumArtist(), retMe);
+			if (artist != null) {
+				artist.addAlbum(album);
+				albumArtists.put(album, artist);
+				countFiled(artist, 1);
+			}
+		}
+		for (Track track : tracks) {
+			if (track.getAlbum() == null) {
+				Artist artist = file(track.getAlbumArtist(), retMe);
+				if (artist != null) {
+					artist.addLooseTrack(track);
+					looseTrackArtists.put(track, artist);
+					countFiled(artist, 1);
+				}
+			}
+		}
+		return retMe;
+	}
+
+	// Returns the number of albums and tracks that were re-filed. If cancelled, whatever
+	// hasn't been re-filed yet is put back in the queue for next time.
+	int applyPendingUpdates(Library library, BooleanSupplier cancelled) {
+		try {
+			return fileUpdates(library, cancelled);
+		} finally {
+			publishArtistChanges();
+		}
+	}
+
+	private int fileUpdates(Library library, BooleanSupplier cancelled) {
+		List<Album> albums;
+		List<Track> tracks;
+		synchronized (this) {
+			albums = new ArrayList<>(pendingAlbums);
+			tracks = new ArrayList<>(pendingTracks);
+			pendingAlbums.clear();
+			pendingTracks.clear();
+		}
+		int updateCount = 0;
+		for (int k = 0; k < albums.size(); k++) {
+			if (cancelled.getAsBoolean()) {
+				requeue(albums.subList(k, albums.size()), tracks);
+				return updateCount;
+			}
+			Album album = albums.get(k);
+			// Whether an album's tracks are loose depends on the album, so they're rechecked too
+			tracks.addAll(album.getTracks());
+			updateAlbum(album, library.getAlbum(album.getPath()) == album);
+			updateCount++;
+		}
+		for (int k = 0; k < tracks.size(); k++) {
+			if (k % 1000 == 0 && cancelled.getAsBoolean()) {
+				requeue(new ArrayList<>(), tracks.subList(k, tracks.size()));
+				return updateCount;
+			}
+			Track track = tracks.get(k);
+			updateTrack(track, library.getTrack(track.getPath()) == track);
+			updateCount++;
+		}
+		return updateCount;
+	}
+
+	private synchronized void requeue(List<Album> albums, List<Track> tracks) {
+		pendingAlbums.addAll(albums);
+		pendingTracks.addAll(tracks);
+	}
+
+	private synchronized void updateAlbum(Album album, boolean inLibrary) {
+		Artist current = albumArtists.remove(album);
+		if (current != null) {
+			artistChanges.add(() -> current.removeAlbum(album));
+			countFiled(current, -1);
+		}
+		Artist artist = inLibrary ? file(album.getAlbumArtist(), null) : null;
+		if (artist != null) {
+			artistChanges.add(() -> artist.addAlbum(album));
+			albumArtists.put(album, artist);
+			countFiled(artist, 1);
+		}
+		if (current != null && current != artist) {
+			removeIfEmpty(current);
+		}
+	}
+
+	private synchronized void updateTrack(Track track, boolean inLibrary) {
+		Artist current = looseTrackArtists.remove(track);
+		if (current != null) {
+			artistChanges.add(() -> current.removeTrack(track));
+			countFiled(current, -1);
+		}
+		Artist artist = inLibrary && track.getAlbum() == null ? file(track.getAlbumArtist(), null) : null;
+		if (artist != null) {
+			artistChanges.add(() -> artist.addLooseTrack(track));
+			looseTrackArtists.put(track, artist);
+			countFiled(artist, 1);
+		}
+		if (current != null && current != artist) {
+			removeIfEmpty(current);
+		}
+	}
+
+	// Artists are matched ignoring case; the first spelling seen names the artist.
+	// New artists go into newArtists if it's given, otherwise straight into the library.
+	private Artist file(String name, List<Artist> newArtists) {
+		if (name == null || name.isBlank()) {
+			return null;
+		}
+		String key = name.toLowerCase();
+		Artist artist = artistsByName.get(key);
+		if (artist == null) {
+			artist = new Artist(name);
+			artistsByName.put(key, artist);
+			if (newArtists != null) {
+				newArtists.add(artist);
+			} else {
+				artists.addItem(artist);
+			}
+		}
+		return artist;
+	}
+
+	private void countFiled(Artist artist, int change) {
+		int count = filedCounts.getOrDefault(artist, 0) + change;
+		if (count <= 0) {
+			filedCounts.remove(artist);
+		} else {
+			filedCounts.put(artist, count);
+		}
+	}
+
+	private void publishArtistChanges() {
+		List<Runnable> changes;
+		synchronized (this) {
+			if (artistChanges.isEmpty()) {
+				return;
+			}
+			changes = artistChanges;
+			artistChanges = new ArrayList<>();
+		}
+		Runnable apply = () -> {
+			for (Runnable change : changes) {
+				change.run();
+			}
+		};
+		if (Platform.isFxApplicationThread()) {
+			apply.run();
+			return;
+		}
+		try {
+			Platform.runLater(apply);
+		} catch (IllegalStateException e) {
+			// The toolkit isn't running, so nothing is showing these artists
+			apply.run();
+		}
+	}
+
+	private void removeIfEmpty(Artist artist) {
+		if (!filedCounts.containsKey(artist)) {
+			artistsByName.remove(artist.getName().toLowerCase());
+			artists.remove(artist);
+		}
+	}
+}
@@ -1,8 +1,14 @@
 package net.joshuad.hypnos.library;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -23,14 +29,40 @@ public class CachedList<T> {
 	ObservableList<T> displayCache = FXCollections
 			.synchronizedObservableList(FXCollections.observableArrayList(new ArrayList<T>()));
 
-	List<Action<T>> pendingChanges = new ArrayList<>();
+	// Written by whichever thread modifies items, drained on the FX thread
+	Queue<Action<T>> pendingChanges = new ConcurrentLinkedQueue<>();
 	
-	boolean runLaterPending = false;
+	public enum UpdatePriority {
+		HIGH, NORMAL, LOW
+	}
+
+	private final UpdatePriority updatePriority;
+
+	// Readers get an immutable copy of items. It's only copied again once items has changed,
+	// so repeated reads between changes are free and don't hold itemsLock while iterating.
+	private static class Snapshot<T> {
+		final long version;
+		final List<T> items;
+
+		Snapshot(long version, List<T> items) {
+			this.version = version;
+			this.items = items;
+		}
+	}
+
+	private volatile long version = 0;
+	private volatile Snapshot<T> snapshot = new Snapshot<>(0, Collections.emptyList());
 	
 	public CachedList() {
+		this(UpdatePriority.NORMAL);
+	}
+
+	public CachedList(UpdatePriority updatePriority) {
+		this.updatePriority = updatePriority;
 		items.addListener(new ListChangeListener<T>() {
 			@Override
 			public void onChanged(Change<? extends T> change) {
+				version++;
 				while (change.next()) {
 					if (change.wasPermutated()) {
 						for (int i = change.getFrom(); i < change.getTo(); ++i) {
@@ -47,27 +79,13 @@ public class CachedList<T> {
 						}
 					}
 				}
+				DisplayCacheUpdater.get().requestUpdate(CachedList.this);
 			}
 		});
-		
-		Thread changeExecutor = new Thread() {
-			@Override
-			public void run() {
-				while (true) {
-					if (!runLaterPending) {
-						pushChanges();
-					}
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-						LOGGER.log(Level.INFO, "Sleep interupted during wait period.", e);
-					}
-				}
-			}
-		};
-		changeExecutor.setDaemon(true);
-		changeExecutor.setName("Library to UI updater");
-		changeExecutor.start();
+	}
+
+	UpdatePriority getUpdatePriority() {
+		return updatePriority;
 	}
 	
 	public void remove(T removeMe) {
@@ -94,6 +112,28 @@ public class CachedList<T> {
 		}
 	}
 	
+	// Removes every item in removeMe in one pass, matching by identity
+	public void removeAll(Collection<T> removeMe) {
+		if(Platform.isFxApplicationThread()) {
+			LOGGER.log(
+					Level.WARNING, 
+					"Modifying the base list while on UI Thread. This is likely a bug, but trying to continue.",
+					new Exception()
+				);
+		}
+		if(removeMe.isEmpty()) {
+			return;
+		}
+		Set<T> removeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+		removeSet.addAll(removeMe);
+		try {
+			itemsLock.lock();	
+			items.removeAll(removeSet);
+		} finally {
+			itemsLock.unlock();
+		}
+	}
+	
 	public void addItem(T addMe) {
 		addItem(addMe, false);
 	}
@@ -120,12 +160,30 @@ public class CachedList<T> {
 		}
 	}
 	
-	//TODO: Can i just make this public List<T> getItems() {return items;}?  I think so 
-	public ObservableList<T> getItemsCopy() {
+	public List<T> getSnapshot() {
+		Snapshot<T> current = snapshot;
+		if (current.version == version) {
+			return current.items;
+		}
+		try {
+			itemsLock.lock();
+			if (snapshot.version != version) {
+				snapshot = new Snapshot<>(version, Collections.unmodifiableList(new ArrayList<>(items)));
+			}
+			return snapshot.items;
+		} finally {
+			itemsLock.unlock();
+		}
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setAll(List<T> newItems) {
 		try {
 			itemsLock.lock();
-			ObservableList<T> retMe = FXCollections.observableList(items);
-			return retMe;
+			items.setAll(newItems);
 		} finally {
 			itemsLock.unlock();
 		}
@@ -141,40 +199,52 @@ public class CachedList<T> {
 		return displayCache;
 	}
 	
-	private void pushChanges() {
-		if (!pendingChanges.isEmpty()) {
-			runLaterPending = true;
-			Platform.runLater(() -> {
-				long startTime = System.currentTimeMillis();
-				boolean locked = false;
-				try {
-					if (itemsLock.tryLock(200, TimeUnit.MILLISECONDS)) {
-						locked = true;
-						while (pendingChanges.size() > 0 && System.currentTimeMillis() - startTime < 400) {
-							Action<T> action = pendingChanges.remove(0);
-							switch (action.getType()) {
-							case ADD:
-								displayCache.add(action.getItem());
-								break;
-							case REMOVE:
-								displayCache.remove(action.getItem());
-								break;
-							case UPDATE:
-								break;
-							default:
-								break;
-							}
-						}
-					}
-				} catch (Exception e) {
-					LOGGER.log(Level.INFO, "Exception while trying to acquire lock, continuing.", e);
-				} finally {
-					runLaterPending = false;
-					if (locked) {
-						itemsLock.unlock();
-					}
-				}
-			});
+	// Adds and removes of the same item cancel each other out, whatever is left over is
+	// applied to the display cache in bulk so listeners get one change instead of one per item
+	void applyPendingChanges() {
+		Map<T, Integer> netChanges = new IdentityHashMap<>();
+		List<T> changedItems = new ArrayList<>();
+		Action<T> action;
+		while ((action = pendingChanges.poll()) != null) {
+			int change;
+			switch (action.getType()) {
+			case ADD:
+				change = 1;
+				break;
+			case REMOVE:
+				change = -1;
+				break;
+			case UPDATE:
+			default:
+				continue;
+			}
+			Integer current = netChanges.get(action.getItem());
+			if (current == null) {
+				current = 0;
+				changedItems.add(action.getItem());
+			}
+			netChanges.put(action.getItem(), current + change);
+		}
+		Set<T> removals = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<T> additions = new ArrayList<>();
+		for (T item : changedItems) {
+			int netChange = netChanges.get(item);
+			if (netChange < 0) {
+				removals.add(item);
+			}
+			for (int k = 0; k < netChange; k++) {
+				additions.add(item);
+			}
+		}
+		if (!removals.isEmpty()) {
+			if (removals.size() >= displayCache.size() && removals.containsAll(displayCache)) {
+				displayCache.setAll(additions);
+				return;
+			}
+			displayCache.removeAll(removals);
+		}
+		if (!additions.isEmpty()) {
+			displayCache.addAll(additions);
 		}
 	}
 
@@ -182,10 +252,19 @@ public class CachedList<T> {
 		items.addListener(listener);
 	}
 
+	public void addListChangeListenerToBase(ListChangeListener<? super T> listener) {
+		items.addListener(listener);
+	}
+
 	public void setDataOnInitialLoad(List<T> initialItems) {
-		items.addAll(initialItems);
-		displayCache.addAll(initialItems);
-		pendingChanges.clear();
+		try {
+			itemsLock.lock();
+			items.addAll(initialItems);
+			displayCache.addAll(initialItems);
+			pendingChanges.clear();
+		} finally {
+			itemsLock.unlock();
+		}
 	}
 }
 
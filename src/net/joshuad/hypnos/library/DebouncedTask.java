@@ -0,0 +1,81 @@
+package net.joshuad.hypnos.library;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Runs a task on its own thread once requests stop arriving for quietMS, but never later than
+// maxDelayMS after the first request that hasn't been handled yet. The task should check
+// isStale() as it goes and return false if it gave up because a newer request came in, in
+// which case it is run again after the next quiet period. Once the oldest unhandled request
+// is older than maxDelayMS the task is no longer reported stale, so it always gets to finish.
+class DebouncedTask {
+	private static final Logger LOGGER = Logger.getLogger(DebouncedTask.class.getName());
+
+	private final long quietMS;
+	private final long maxDelayMS;
+	private final BooleanSupplier task;
+	private final ScheduledExecutorService executor;
+
+	private ScheduledFuture<?> scheduledRun = null;
+	private long requestCount = 0;
+	private long requestCountAtRunStart = 0;
+	private long oldestUnhandledRequestMS = -1;
+
+	DebouncedTask(String threadName, long quietMS, long maxDelayMS, BooleanSupplier task) {
+		this.quietMS = quietMS;
+		this.maxDelayMS = maxDelayMS;
+		this.task = task;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable);
+			thread.setName(threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	synchronized void request() {
+		long now = System.currentTimeMillis();
+		requestCount++;
+		if (oldestUnhandledRequestMS < 0) {
+			oldestUnhandledRequestMS = now;
+		}
+		long delay = Math.max(0, Math.min(quietMS, oldestUnhandledRequestMS + maxDelayMS - now));
+		if (scheduledRun != null) {
+			scheduledRun.cancel(false);
+		}
+		scheduledRun = executor.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+	}
+
+	synchronized boolean isStale() {
+		return requestCount != requestCountAtRunStart
+				&& System.currentTimeMillis() - oldestUnhandledRequestMS < maxDelayMS;
+	}
+
+	private void run() {
+		long requestCountAtStart;
+		synchronized (this) {
+			requestCountAtRunStart = requestCount;
+			requestCountAtStart = requestCount;
+		}
+		boolean finished = false;
+		try {
+			finished = task.getAsBoolean();
+		} catch (Exception e) {
+			LOGGER.log(Level.INFO, "Caught an unhandled exception in debounced task, continuing.", e);
+			finished = true;
+		}
+		synchronized (this) {
+			if (finished && requestCount == requestCountAtStart) {
+				oldestUnhandledRequestMS = -1;
+			} else if (finished) {
+				// Requests that came in during the run are handled by the run they scheduled
+				oldestUnhandledRequestMS = System.currentTimeMillis();
+			}
+		}
+	}
+}
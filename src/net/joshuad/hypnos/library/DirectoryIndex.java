@@ -0,0 +1,118 @@
+package net.joshuad.hypnos.library;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Groups items by the directory that contains them, and remembers which subdirectories of a
+// directory hold items, so "what's in this directory" and "what's under this directory" are
+// answered without looking at anything outside of that directory.
+class DirectoryIndex<T> {
+	private final Map<Path, Set<T>> itemsByDirectory = new HashMap<>();
+	private final Map<Path, Set<Path>> childDirectories = new HashMap<>();
+
+	synchronized void add(Path itemPath, T item) {
+		Path directory = itemPath.toAbsolutePath().getParent();
+		if (directory == null) {
+			return;
+		}
+		itemsByDirectory.computeIfAbsent(directory, k -> new LinkedHashSet<>()).add(item);
+		Path child = directory;
+		Path parent = child.getParent();
+		while (parent != null) {
+			if (!childDirectories.computeIfAbsent(parent, k -> new LinkedHashSet<>()).add(child)) {
+				break;
+			}
+			child = parent;
+			parent = child.getParent();
+		}
+	}
+
+	synchronized void remove(Path itemPath, T item) {
+		Path directory = itemPath.toAbsolutePath().getParent();
+		if (directory == null) {
+			return;
+		}
+		Set<T> items = itemsByDirectory.get(directory);
+		if (items == null) {
+			return;
+		}
+		items.remove(item);
+		if (items.isEmpty()) {
+			itemsByDirectory.remove(directory);
+		}
+		prune(directory);
+	}
+
+	synchronized List<T> getItemsIn(Path directory) {
+		Set<T> items = itemsByDirectory.get(directory.toAbsolutePath());
+		if (items == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(items);
+	}
+
+	synchronized List<T> getItemsUnder(Path directory) {
+		List<T> retMe = new ArrayList<>();
+		Deque<Path> toVisit = new ArrayDeque<>();
+		toVisit.push(directory.toAbsolutePath());
+		while (!toVisit.isEmpty()) {
+			Path current = toVisit.pop();
+			Set<T> items = itemsByDirectory.get(current);
+			if (items != null) {
+				retMe.addAll(items);
+			}
+			Set<Path> children = childDirectories.get(current);
+			if (children != null) {
+				for (Path child : children) {
+					toVisit.push(child);
+				}
+			}
+		}
+		return retMe;
+	}
+
+	// Subdirectories of directory that hold items, directly or further down
+	synchronized List<Path> getChildDirectories(Path directory) {
+		Set<Path> children = childDirectories.get(directory.toAbsolutePath());
+		if (children == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(children);
+	}
+
+	// Every directory that directly holds an item
+	synchronized List<Path> getDirectories() {
+		return new ArrayList<>(itemsByDirectory.keySet());
+	}
+
+	synchronized void clear() {
+		itemsByDirectory.clear();
+		childDirectories.clear();
+	}
+
+	private void prune(Path directory) {
+		Path current = directory;
+		while (current != null && !itemsByDirectory.containsKey(current)) {
+			Set<Path> children = childDirectories.get(current);
+			if (children != null && !children.isEmpty()) {
+				break;
+			}
+			childDirectories.remove(current);
+			Path parent = current.getParent();
+			if (parent != null) {
+				Set<Path> siblings = childDirectories.get(parent);
+				if (siblings != null) {
+					siblings.remove(current);
+				}
+			}
+			current = parent;
+		}
+	}
+}
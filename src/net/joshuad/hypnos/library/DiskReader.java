@@ -7,15 +7,25 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import me.xdrop.fuzzywuzzy.FuzzySearch;
 import net.joshuad.hypnos.Hypnos;
 import net.joshuad.hypnos.Utils;
 import net.joshuad.hypnos.fxui.FXUI;
@@ -39,13 +49,33 @@ class DiskReader implements FileVisitor<Path> {
 	}
 
 	private FileTreeNode currentDirectoryNode = null;
-	private boolean interrupted = false;
-	private boolean interruptRequested = false;
+	private volatile boolean interrupted = false;
+	private volatile boolean interruptRequested = false;
 	private long directoriesVisited = 0;
-	private long directoriesToScan = 1;
+	private long directoriesToScan = -1; // -1 when we don't know how many there will be
 	private Path currentRootPath = null;
+	private volatile MusicRoot currentMusicRoot = null;
+	private boolean skippedCheckpointed = false;
 	private ScanMode scanMode = ScanMode.INITIAL_SCAN;
 
+	// Tags are read on a pool of worker threads while the walk moves on. Each open directory has
+	// the tracks it's waiting on, and postVisitDirectory only waits for its own.
+	private static class PendingTrack {
+		final FileTreeNode node;
+		final Future<Track> future;
+		final boolean isNew;
+
+		PendingTrack(FileTreeNode node, Future<Track> future, boolean isNew) {
+			this.node = node;
+			this.future = future;
+			this.isNew = isNew;
+		}
+	}
+
+	private ThreadPoolExecutor tagReaders = null;
+	private final IoThrottle throttle;
+	private final Deque<List<PendingTrack>> pendingTracks = new ArrayDeque<>();
+
 	private Library library;
 	private FXUI ui;
 	LibraryLoader loader;
@@ -55,6 +85,7 @@ class DiskReader implements FileVisitor<Path> {
 		this.loader = loader;
 		this.library = library;
 		this.scanLogger = scanLogger;
+		this.throttle = new IoThrottle(library);
 	}
 
 	void setUI(FXUI ui) {
@@ -65,35 +96,91 @@ class DiskReader implements FileVisitor<Path> {
 		interruptRequested = true;
 	}
 
+	void interrupt(MusicRoot musicRoot) {
+		if (currentMusicRoot == musicRoot) {
+			interruptRequested = true;
+		}
+	}
+
 	private void resetState() {
 		currentDirectoryNode = null;
 		interrupted = false;
 		interruptRequested = false;
 		directoriesVisited = 0;
-		directoriesToScan = 1;
+		directoriesToScan = -1;
 		currentRootPath = null;
+		currentMusicRoot = null;
+		skippedCheckpointed = false;
 		scanMode = ScanMode.INITIAL_SCAN;
+		pendingTracks.clear();
+	}
+
+	private void startTagReaders(Path root) {
+		throttle.startScan(root);
+		int workers = Math.max(1, Hypnos.getLoaderThreads());
+		// When the queue is full the walk reads the next file itself, which keeps it from running
+		// too far ahead of the workers
+		tagReaders = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS, 
+				new ArrayBlockingQueue<>(workers * 16), runnable -> {
+					Thread thread = new Thread(runnable);
+					thread.setName("Library Tag Reader");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	private void stopTagReaders() {
+		scanLogger.println("[DiskReader] Tag reading: " + throttle.getSummary());
+		// Anything still pending belongs to a directory the walk didn't finish
+		for (List<PendingTrack> pendingList : pendingTracks) {
+			for (PendingTrack pending : pendingList) {
+				pending.future.cancel(false);
+			}
+		}
+		pendingTracks.clear();
+		if (tagReaders != null) {
+			tagReaders.shutdown();
+			tagReaders = null;
+		}
 	}
 
 	// TODO: make sure we're not already scanning, if so throw an error
 	void scanMusicRoot(MusicRoot musicRoot, ScanMode scanMode) {
 		resetState();
 		this.scanMode = scanMode;
+		currentMusicRoot = musicRoot;
 		scanLogger.println("[DiskReader] " + scanMode.statusPrefix + " root: " + musicRoot.getPath().toString());
 		try {
-			directoriesToScan = LibraryLoader.getDirectoryCount(musicRoot.getPath());
+			// Counting directories up front would take a walk of its own, so the last scan's count is used
+			directoriesToScan = musicRoot.getDirectoryCount();
 			currentRootPath = musicRoot.getPath();
-			ui.setLibraryLoaderStatus(scanMode.getStatusPrefix() + " " + currentRootPath.toString() + "...", 0, this);
-			library.getDiskWatcher().watchAll(musicRoot.getPath());
+			if (ui != null) {
+				ui.setLibraryLoaderStatus(scanMode.getStatusPrefix() + " " + currentRootPath.toString() + "...", 0, this);
+			}
 	
 			if (scanMode == ScanMode.INITIAL_SCAN) {
 				musicRoot.setNeedsRescan(false);
+				if (musicRoot.hasScanCheckpoint()) {
+					scanLogger.println("[DiskReader] Resuming initial scan of root: " + musicRoot.getPath().toString());
+					directoriesVisited = musicRoot.getScanCheckpointDirectoryCount();
+				}
 			}
 		
+			startTagReaders(musicRoot.getPath());
 			Files.walkFileTree(musicRoot.getPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, this);
+			if (!interrupted) {
+				musicRoot.setDirectoryCount(directoriesVisited);
+			}
 			switch (scanMode) {
 			case INITIAL_SCAN:
 				musicRoot.setNeedsInitialScan(interrupted);
+				if (!interrupted) {
+					musicRoot.clearScanCheckpoint();
+					// Directories skipped on resume still need their watches and any changes since they were read
+					if (skippedCheckpointed) {
+						musicRoot.setNeedsRescan(true);
+					}
+				}
 				break;
 			case RESCAN:
 				musicRoot.setNeedsRescan(interrupted);
@@ -105,6 +192,8 @@ class DiskReader implements FileVisitor<Path> {
 			scanLogger.println(ExceptionUtils.getStackTrace(e));
 			musicRoot.setNeedsRescan(false);
 			musicRoot.setFailedScan(true);
+		} finally {
+			stopTagReaders();
 		}
 
 		if (ui != null) {
@@ -116,10 +205,9 @@ class DiskReader implements FileVisitor<Path> {
 	void updatePath(Path path) {
 		resetState();
 		this.scanMode = ScanMode.RESCAN;
-		directoriesToScan = LibraryLoader.getDirectoryCount(path);
 		currentRootPath = path;
-		library.getDiskWatcher().watchAll(path);
 		try {
+			startTagReaders(path);
 			Files.walkFileTree(path, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, this);
 		} catch (Exception e) {
 			scanLogger.println("[DiskReader] Scan failed or incomplete for path, giving up: " + path);
@@ -130,53 +218,52 @@ class DiskReader implements FileVisitor<Path> {
 					root.setFailedScan(true);
 				}
 			}
+		} finally {
+			stopTagReaders();
 		}
 		if (ui != null) {
 			ui.setLibraryLoaderStatusToStandby(this);
 		}
 	}
 	
-	private final List<Track> tracksInCurrentDirectory = new ArrayList<>();
+	private final Map<Path, Track> tracksInCurrentDirectory = new HashMap<>();
+
+	private void loadTracksInDirectory(Path dir) {
+		tracksInCurrentDirectory.clear();
+		for (Track libraryTrack : library.getTracksInDirectory(dir)) {
+			tracksInCurrentDirectory.put(libraryTrack.getPath(), libraryTrack);
+		}
+	}
+
 	@Override
 	public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
 		if (interruptRequested) {
 			interrupted = true;
 			return FileVisitResult.TERMINATE;
 		}
+		if (scanMode == ScanMode.INITIAL_SCAN && currentMusicRoot != null && currentMusicRoot.isCheckpointed(dir)) {
+			// Finished before the scan was interrupted, the parent only needs to know if it's an album
+			FileTreeNode skippedNode = new FileTreeNode(dir, currentDirectoryNode);
+			skippedNode.setAlbum(library.getAlbum(dir));
+			if (currentDirectoryNode != null) {
+				currentDirectoryNode.addChild(skippedNode);
+			}
+			skippedCheckpointed = true;
+			return FileVisitResult.SKIP_SUBTREE;
+		}
 		FileTreeNode directoryNode = new FileTreeNode(dir, currentDirectoryNode);
 		if (currentDirectoryNode != null) {
 			currentDirectoryNode.addChild(directoryNode);
 		}
 		currentDirectoryNode = directoryNode;
+		pendingTracks.push(new ArrayList<>());
+		library.getDiskWatcher().watch(dir, currentMusicRoot);
 		if (ui != null) {
 			ui.setLibraryLoaderStatus(scanMode.getStatusPrefix() + " " + currentRootPath.toString() + "...",
-					directoriesVisited / (double) directoriesToScan, this);
-		}
-		tracksInCurrentDirectory.clear();
-		for ( Track libraryTrack : library.getTrackData() ) {
-			if ( libraryTrack.getPath().startsWith(dir) ) {
-				tracksInCurrentDirectory.add(libraryTrack);
-			}
-		}	
-		switch(Hypnos.getLoaderSpeed()) {
-			case HIGH:
-			default:
-				break;
-			case MED:
-				try {
-					Thread.sleep(10);
-				} catch (InterruptedException e) {
-					LOGGER.log(Level.INFO, "Interrupted during sleep in disk watcher, if this persists the loader speed may be ignored.", e);
-				}
-				break;
-			case LOW:
-				try {
-					Thread.sleep(50);
-				} catch (InterruptedException e) {
-					LOGGER.log(Level.INFO, "Interrupted during sleep in disk watcher, if this persists the loader speed may be ignored.", e);
-				}
-				break;
+					getProgress(), this);
 		}
+		loadTracksInDirectory(dir);
+		throttle.pause();
 		return FileVisitResult.CONTINUE;
 	}
 
@@ -184,20 +271,33 @@ class DiskReader implements FileVisitor<Path> {
 	public FileVisitResult visitFile(Path filePath, BasicFileAttributes attr) {
 		loader.pathUpdated(filePath);
 		if (Utils.isMusicFile(filePath)) {
-			Track track = null;
-			for (Track libraryTrack : tracksInCurrentDirectory) {
-				if (libraryTrack.getPath().equals(filePath)) {
-					track = libraryTrack;
-					break;
-				}
+			Track existingTrack = tracksInCurrentDirectory.get(filePath);
+			if (existingTrack != null && existingTrack.fingerprintMatches(attr)) {
+				// Unchanged since we last read its tags
+				currentDirectoryNode.addChild(new FileTreeNode(filePath, currentDirectoryNode, existingTrack));
+				return FileVisitResult.CONTINUE;
 			}
-			if (track == null) {
-				track = new Track(filePath, true);
-				library.addTrack(track);
+			throttle.pause();
+			Future<Track> future;
+			if (existingTrack == null) {
+				future = tagReaders.submit(() -> {
+					long start = System.nanoTime();
+					Track track = new Track(filePath, true);
+					throttle.recordRead(System.nanoTime() - start);
+					return track;
+				});
 			} else {
-				track.refreshTagData();
+				future = tagReaders.submit(() -> {
+					long start = System.nanoTime();
+					existingTrack.refreshTagData();
+					throttle.recordRead(System.nanoTime() - start);
+					return existingTrack;
+				});
 			}
-			currentDirectoryNode.addChild(new FileTreeNode(filePath, currentDirectoryNode, track));
+			// The node is added now so the directory's children keep their on-disk order
+			FileTreeNode trackNode = new FileTreeNode(filePath, currentDirectoryNode);
+			currentDirectoryNode.addChild(trackNode);
+			pendingTracks.peek().add(new PendingTrack(trackNode, future, existingTrack == null));
 		}
 		return FileVisitResult.CONTINUE;
 	}
@@ -206,6 +306,10 @@ class DiskReader implements FileVisitor<Path> {
 	public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
 		directoriesVisited++;
 		loader.pathUpdated(dir);
+		collectPendingTracks();
+		if (exception == null) {
+			removeItemsNotVisited(dir);
+		}
 		if (isAlbum(currentDirectoryNode, scanLogger)) {
 			List<Track> tracks = new ArrayList<>();
 			for (FileTreeNode child : currentDirectoryNode.getChildren()) {
@@ -213,30 +317,88 @@ class DiskReader implements FileVisitor<Path> {
 					tracks.add(child.getTrack());
 				}
 			}
-			Album album = null;
-			for(Album libraryAlbum : library.getAlbumData()) {
-				if(libraryAlbum.getPath().equals(currentDirectoryNode.getPath())) {
-					album = libraryAlbum;
-				}
-			}
+			Album album = library.getAlbum(currentDirectoryNode.getPath());
 			if(album == null ) {
 				album = new Album(currentDirectoryNode.getPath(), tracks);
 				scanLogger.println("[DiskReader] Loading new album: " + album.getAlbumArtist() + " - " + album.getAlbumTitle());
 				library.addAlbum(album);
 			} else {
 				album.setTracks(tracks);
+				library.requestArtistUpdate(album);
 				scanLogger.println("[DiskReader] Updating album: " + album.getAlbumArtist() + " - " + album.getAlbumTitle());
 			}
 			currentDirectoryNode.setAlbum(album);
 		} else {
 			library.notAnAlbum(currentDirectoryNode.getPath());
 		}
+		if (scanMode == ScanMode.INITIAL_SCAN && currentMusicRoot != null) {
+			List<Path> children = new ArrayList<>();
+			for (FileTreeNode child : currentDirectoryNode.getChildren()) {
+				children.add(child.getPath());
+			}
+			currentMusicRoot.checkpointDirectory(dir, children);
+		}
 		if (currentDirectoryNode.getParent() != null) {
 			currentDirectoryNode = currentDirectoryNode.getParent();
+			loadTracksInDirectory(currentDirectoryNode.getPath());
 		}
 		return FileVisitResult.CONTINUE;
 	}
 
+	// Tracks and subdirectories we had in dir that the walk didn't find, so a directory rescan also
+	// picks up deletions. A renamed subdirectory keeps its watch, so nothing else would catch it.
+	private void removeItemsNotVisited(Path dir) {
+		Set<Path> visited = new HashSet<>();
+		for (FileTreeNode child : currentDirectoryNode.getChildren()) {
+			visited.add(child.getPath().toAbsolutePath());
+		}
+		for (Track track : library.getTracksInDirectory(dir)) {
+			if (!visited.contains(track.getPath().toAbsolutePath()) && !Files.exists(track.getPath())) {
+				scanLogger.println("[DiskReader] Removing track, no longer on disk: " + track.getPath());
+				library.removeTrack(track);
+			}
+		}
+		for (Path childDirectory : library.getChildDirectories(dir)) {
+			if (visited.contains(childDirectory) || Files.exists(childDirectory)) {
+				continue;
+			}
+			scanLogger.println("[DiskReader] Removing directory, no longer on disk: " + childDirectory);
+			library.removeTracks(library.getTracksAtOrBelow(childDirectory));
+			library.removeAlbums(library.getAlbumsAtOrBelow(childDirectory));
+			library.getDiskWatcher().stopWatching(childDirectory);
+		}
+	}
+
+	private double getProgress() {
+		if (directoriesToScan <= 0) {
+			return -1; // Shows the progress bar as indeterminate
+		}
+		return Math.min(1, directoriesVisited / (double) directoriesToScan);
+	}
+
+	private void collectPendingTracks() {
+		List<PendingTrack> pendingList = pendingTracks.pop();
+		for (PendingTrack pending : pendingList) {
+			Track track;
+			try {
+				track = pending.future.get();
+			} catch (ExecutionException e) {
+				LOGGER.log(Level.INFO, "Unable to read tags for " + pending.node.getPath(), e);
+				continue;
+			} catch (InterruptedException e) {
+				LOGGER.log(Level.INFO, "Interrupted while waiting for tags for " + pending.node.getPath(), e);
+				interruptRequested = true;
+				continue;
+			}
+			if (pending.isNew) {
+				library.addTrack(track);
+			} else {
+				library.requestArtistUpdate(track);
+			}
+			pending.node.setTrack(track);
+		}
+	}
+
 	@Override
 	public FileVisitResult visitFileFailed(Path file, IOException exception) throws IOException {
 		LOGGER.log(Level.INFO, "Unable to scan" + file, exception);
@@ -274,31 +436,16 @@ class DiskReader implements FileVisitor<Path> {
 				childTrackCount++;
 
 				if (albumName == null) {
-					albumName = Utils.prepareAlbumForCompare(child.getTrack().getAlbumTitle());
-					artistName = Utils.prepareArtistForCompare(child.getTrack().getAlbumArtist());
+					albumName = NameNormalizer.albumKey(child.getTrack().getAlbumTitle());
+					artistName = NameNormalizer.artistKey(child.getTrack().getAlbumArtist());
 
 				} else {
-					// We usually use weighted ratio, but that can return 0 for album names like ()
-					// even if the strings are identical.
-					// In that case, we switch to straight ratio, which doesn't have this problem
-
-					int albumMatchPercent = FuzzySearch.weightedRatio(albumName,
-							Utils.prepareAlbumForCompare(child.getTrack().getAlbumTitle()));
-					if (albumMatchPercent == 0)
-						albumMatchPercent = FuzzySearch.ratio(albumName,
-								Utils.prepareAlbumForCompare(child.getTrack().getAlbumTitle()));
-					if (albumMatchPercent < 90) {
+					if (!NameNormalizer.keysMatch(albumName, NameNormalizer.albumKey(child.getTrack().getAlbumTitle()))) {
 						libraryLog.println( "[LibraryLoader] Album rejected, album name in tags too different: " + node.getPath() );
 						return false;
 					}
 
-					int artistMatchPercent = FuzzySearch.weightedRatio(artistName,
-							Utils.prepareArtistForCompare(child.getTrack().getAlbumArtist()));
-					if (artistMatchPercent == 0)
-						albumMatchPercent = FuzzySearch.ratio(artistName,
-								Utils.prepareAlbumForCompare(child.getTrack().getAlbumArtist()));
-					if (artistMatchPercent < 90) {
-
+					if (!NameNormalizer.keysMatch(artistName, NameNormalizer.artistKey(child.getTrack().getAlbumArtist()))) {
 						libraryLog.println( "[LibraryLoader] Album rejected, artist name in tags too different: " + node.getPath() );
 						return false;
 					}
@@ -2,19 +2,22 @@ package net.joshuad.hypnos.library;
 
 import java.io.IOException;
 import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.EnumSet;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Vector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,20 +30,27 @@ import net.joshuad.hypnos.Hypnos.OS;
 class DiskWatcher {
 	private static final Logger LOGGER = Logger.getLogger( DiskWatcher.class.getName() );
 	private WatchService watcher;
-	private final HashMap<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
-	private DelayedUpdateThread delayedUpdater;
+	private final WatchRegistry keys = new WatchRegistry();
+	private DelayedUpdater delayedUpdater;
+	private OverflowRecovery overflowRecovery;
+	private PollingWatcher poller;
 	private FXUI ui;
+	private Library library;
 	private LibraryScanLogger scanLogger;
 	DiskWatcher( Library library, LibraryScanLogger scanLogger ) {
+		this.library = library;
 		this.scanLogger = scanLogger;
-		delayedUpdater = new DelayedUpdateThread( library );
+		delayedUpdater = new DelayedUpdater( library );
+		overflowRecovery = new OverflowRecovery( library, keys, delayedUpdater::addUpdateItem, scanLogger );
+		poller = new PollingWatcher( library, delayedUpdater::addUpdateItem, scanLogger );
 		try {
 			watcher = FileSystems.getDefault().newWatchService();
-			delayedUpdater.start();
 		} catch ( IOException e ) {
-			String message = "Unable to initialize file watcher, changes to file system while running won't be detected";
+			String message = "Unable to initialize file watcher, changes to file system will be found by polling instead";
 			LOGGER.log( Level.WARNING, message, e );
-			ui.notifyUserError( message );
+			if ( ui != null ) {
+				ui.notifyUserError( message );
+			}
 		}
 	}
 	
@@ -48,139 +58,277 @@ class DiskWatcher {
 		this.ui = ui;
 	}
 
+	// Stops watching path and every directory under it
 	void stopWatching( Path path ) {
-		//TODO: Should we stop watching recursively? 
-		for( WatchKey key : keys.keySet() ) {
-			if( keys.get( key ).equals( path ) ) {
-				scanLogger.println( "[Watcher] stopping watch on: " + path.toString() );
-				key.cancel();
-			}
+		List<WatchKey> removed = keys.removeSubtree( path );
+		for ( WatchKey key : removed ) {
+			key.cancel();
+		}
+		int removedCount = removed.size() + poller.removeSubtree( path );
+		if ( removedCount > 0 ) {
+			scanLogger.println( "[Watcher] stopping watch on: " + path.toString() + " (" + removedCount + " directories)" );
 		}
 	}
 	
-	void watchAll( final Path path ) {
-		watchAll( path, null );
-	}
-	
-	void watchAll( final MusicRoot musicRoot ) {
-		watchAll( musicRoot.getPath(), null );
-	}
-	
-	void watchAll( final Path path, final MusicRoot musicRoot ) {
-		/* Note: in my testing, this takes less than a few seconds to run, depending on folder count */ 
+	// Called by the disk readers for each directory as they walk, so registering watches doesn't
+	// need a walk of its own. Directories the watch service can't cover are polled instead.
+	void watch( final Path dir, final MusicRoot musicRoot ) {
+		if ( musicRoot != null ) {
+			poller.checkRoot( musicRoot.getPath() );
+		}
+		if ( watcher == null || poller.isPolling( dir ) ) {
+			poller.add( dir );
+			return;
+		}
 		try {
-			Files.walkFileTree( 
-				path, 
-				EnumSet.of( FileVisitOption.FOLLOW_LINKS ), 
-				Integer.MAX_VALUE,
-				new SimpleFileVisitor <Path>() {
-					@Override
-					public FileVisitResult preVisitDirectory ( Path dir, BasicFileAttributes attrs ) throws IOException {
-						if ( !keys.containsValue( dir ) ) {
-							WatchKey key = dir.register( 
-								watcher, 
-								StandardWatchEventKinds.ENTRY_CREATE, 
-								StandardWatchEventKinds.ENTRY_DELETE, 
-								StandardWatchEventKinds.ENTRY_MODIFY 
-							);
-							keys.put( key, dir );
-						}
-						return FileVisitResult.CONTINUE;
-					}
-				}
-			);
-		
+			if ( !keys.contains( dir ) ) {
+				WatchKey key = dir.register( 
+					watcher, 
+					StandardWatchEventKinds.ENTRY_CREATE, 
+					StandardWatchEventKinds.ENTRY_DELETE, 
+					StandardWatchEventKinds.ENTRY_MODIFY 
+				);
+				keys.put( dir, key );
+			}
 		} catch ( IOException e ) {
-			if ( Hypnos.getOS() == OS.NIX && e.getMessage().matches( ".*inotify.*" ) ) {
+			if ( Hypnos.getOS() == OS.NIX && e.getMessage() != null && e.getMessage().matches( ".*inotify.*" ) ) {
 				if ( ui != null ) {
 					ui.notifyUserLinuxInotifyIssue();
 				}
-				LOGGER.log( Level.INFO, e.getMessage() + "\nUnable to watch directory for changes: " + musicRoot.getPath().toString() +
+				LOGGER.log( Level.INFO, e.getMessage() + "\nUnable to watch directory for changes: " + dir.toString() +
 					"\nSee here for how to fix this error on linux: " + HypnosURLS.HELP_INOTIFY 
 				);
 				if ( musicRoot != null ) {
 					musicRoot.setHadInotifyError( true );
 				}
 			} else {
-				LOGGER.log( Level.INFO, e.getMessage() + "\nUnable to watch directory for changes: " + musicRoot.getPath().toString(), e );
+				LOGGER.log( Level.INFO, e.getMessage() + "\nUnable to watch directory for changes: " + dir.toString(), e );
+			}
+			// Once one fails the rest of the root would too, so the root is polled from here on
+			poller.startPolling( findRootPath( dir, musicRoot ), "the watch service failed: " + e.getMessage() );
+			poller.add( dir );
+		}
+	}
+
+	private Path findRootPath( Path dir, MusicRoot musicRoot ) {
+		if ( musicRoot != null ) {
+			return musicRoot.getPath();
+		}
+		for ( MusicRoot root : library.getMusicRootData() ) {
+			if ( dir.toAbsolutePath().startsWith( root.getPath().toAbsolutePath() ) ) {
+				return root.getPath();
 			}
 		}
+		return dir;
+	}
+
+	void pollForChanges() {
+		poller.pollSome();
+	}
+	
+	Set<Path> getWatchedDirectories() {
+		Set<Path> retMe = keys.getPaths();
+		retMe.addAll( poller.getDirectories() );
+		return retMe;
 	}
 	
 	boolean processWatcherEvents () {
+		if ( watcher == null ) {
+			return false;
+		}
 		WatchKey key;
 		try {
 			key = watcher.poll( 250, TimeUnit.MILLISECONDS );
 		} catch ( InterruptedException e ) {
 			return false;
 		}
-		Path directory = keys.get( key );
+		if ( key == null ) {
+			return false;
+		}
+		Path directory = keys.getPath( key );
 		if ( directory == null ) {
 			return false;
 		}
+		boolean overflowed = false;
 		for ( WatchEvent <?> event : key.pollEvents() ) {
 			WatchEvent.Kind<?> eventKind = event.kind();
-			WatchEvent <Path> watchEvent = (WatchEvent<Path>)event;
-			Path child = directory.resolve( watchEvent.context() );
-			if ( eventKind == StandardWatchEventKinds.ENTRY_CREATE ) {
-				scanLogger.println( "[Watcher] Heard create: " + child );
-				delayedUpdater.addUpdateItem( child );
-			} else if ( eventKind == StandardWatchEventKinds.ENTRY_DELETE ) {
-				scanLogger.println( "[Watcher] heard delete: " + child );
-				delayedUpdater.addUpdateItem( child );
-			} else if ( eventKind == StandardWatchEventKinds.ENTRY_MODIFY ) {
-				scanLogger.println( "[Watcher] heard modify: " + child );
-				delayedUpdater.addUpdateItem( child );
-			} else if ( eventKind == StandardWatchEventKinds.OVERFLOW ) {
-				//TODO: Think about how to handle this
-			}
-			boolean valid = key.reset();
-			if ( !valid ) {
-				keys.remove( key );
+			if ( eventKind == StandardWatchEventKinds.OVERFLOW ) {
+				overflowed = true;
+			} else {
+				handleEvent( directory, eventKind, (WatchEvent<Path>)event );
 			}
 		}
+		boolean valid = key.reset();
+		if ( !valid ) {
+			keys.remove( key );
+		}
+		if ( overflowed ) {
+			// Whatever else happened in this directory was dropped
+			overflowRecovery.recover( directory );
+		}
 		return true;
 	}
+
+	private void handleEvent( Path directory, WatchEvent.Kind<?> eventKind, WatchEvent <Path> watchEvent ) {
+		Path child = directory.resolve( watchEvent.context() );
+		if ( eventKind == StandardWatchEventKinds.ENTRY_CREATE ) {
+			scanLogger.println( "[Watcher] Heard create: " + child );
+			delayedUpdater.addUpdateItem( child );
+		} else if ( eventKind == StandardWatchEventKinds.ENTRY_DELETE ) {
+			scanLogger.println( "[Watcher] heard delete: " + child );
+			delayedUpdater.addUpdateItem( child );
+		} else if ( eventKind == StandardWatchEventKinds.ENTRY_MODIFY ) {
+			scanLogger.println( "[Watcher] heard modify: " + child );
+			delayedUpdater.addUpdateItem( child );
+		}
+	}
 }
 
-class DelayedUpdateThread extends Thread {
-	private final Logger LOGGER = Logger.getLogger( DelayedUpdateThread.class.getName() );
-	public final int DELAY_LENGTH_MS = 3000; 
-	public int counter = DELAY_LENGTH_MS;
-	Vector <Path> updateItems = new Vector <Path> ();
-	Library library;
+// Holds paths we've heard changes for until they've been quiet for QUIET_MS, so a file that's
+// still being written isn't read half way through. Each path waits on its own changes only, and
+// never longer than MAX_DELAY_MS, so a steady trickle of changes elsewhere can't hold it back. 
+// A change under a waiting directory counts as a change to the directory, and two files waiting 
+// in the same directory become one rescan of the directory, which also sorts out its album.
+// Paths that are gone are never folded into a directory; they wait on their own, so a deletion
+// is just a removal rather than a rescan of everything beside it.
+class DelayedUpdater {
+	private final Logger LOGGER = Logger.getLogger( DelayedUpdater.class.getName() );
+	static final long QUIET_MS = 3000;
+	static final long MAX_DELAY_MS = 30000;
+
+	private static class Pending {
+		final long firstChangeMS;
+		long lastChangeMS;
+		final boolean deleted;
+
+		Pending ( long firstChangeMS, long lastChangeMS, boolean deleted ) {
+			this.firstChangeMS = firstChangeMS;
+			this.lastChangeMS = lastChangeMS;
+			this.deleted = deleted;
+		}
+
+		long dueMS () {
+			return Math.min( lastChangeMS + QUIET_MS, firstChangeMS + MAX_DELAY_MS );
+		}
+	}
+
+	// Sorted so everything waiting under a directory sits right after it
+	private final TreeMap <Path, Pending> pending = new TreeMap <> ( WatchRegistry.BY_NAME_ELEMENTS );
+	private final Map <Path, Integer> pendingChildCount = new HashMap <> ();
+	private final ScheduledExecutorService executor;
+	private ScheduledFuture <?> nextRelease = null;
+	private long nextReleaseMS = Long.MAX_VALUE;
+	private final Library library;
 	
-	public DelayedUpdateThread ( Library library ) {
+	public DelayedUpdater ( Library library ) {
 		this.library = library;
-		setDaemon( true );
-		setName ( "Library Update Delayer" );
+		executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+			Thread thread = new Thread( runnable );
+			thread.setName( "Library Update Delayer" );
+			thread.setDaemon( true );
+			return thread;
+		});
 	}
 	
-	public void run() {
-		while ( true ) {
-			long startSleepTime = System.currentTimeMillis();
-			try { 
-				Thread.sleep ( 50 ); 
-			} catch ( InterruptedException e ) {
-				LOGGER.log ( Level.INFO, "Sleep interupted during wait period.", e );
+	public synchronized void addUpdateItem ( Path location ) {
+		location = location.toAbsolutePath();
+		long now = System.currentTimeMillis();
+		boolean deleted = !Files.exists( location );
+		Path covering = location;
+		while ( covering != null ) {
+			Pending existing = pending.get( covering );
+			if ( existing != null && ( covering == location || ( !deleted && !existing.deleted ) ) ) {
+				existing.lastChangeMS = now;
+				scheduleRelease( existing.dueMS() );
+				return;
+			}
+			covering = covering.getParent();
+		}
+		if ( deleted ) {
+			Pending added = new Pending( now, now, true );
+			pending.put( location, added );
+			scheduleRelease( added.dueMS() );
+			return;
+		}
+		long firstChangeMS = now;
+		Path parent = location.getParent();
+		if ( parent != null && pendingChildCount.containsKey( parent ) ) {
+			location = parent;
+		}
+		// Anything already waiting under location is folded into it
+		Iterator <Map.Entry <Path, Pending>> iterator = pending.tailMap( location, false ).entrySet().iterator();
+		while ( iterator.hasNext() ) {
+			Map.Entry <Path, Pending> entry = iterator.next();
+			if ( !entry.getKey().startsWith( location ) ) {
+				break;
+			}
+			if ( entry.getValue().deleted ) {
+				continue;
 			}
-			long sleepTime = System.currentTimeMillis() - startSleepTime;
-			if ( counter > 0 ) {
-				counter -= sleepTime; 
+			firstChangeMS = Math.min( firstChangeMS, entry.getValue().firstChangeMS );
+			iterator.remove();
+			countChild( entry.getKey(), -1 );
+		}
+		Pending added = new Pending( firstChangeMS, now, false );
+		pending.put( location, added );
+		countChild( location, 1 );
+		scheduleRelease( added.dueMS() );
+	}
+
+	private void countChild ( Path path, int change ) {
+		Path parent = path.getParent();
+		if ( parent != null ) {
+			int count = pendingChildCount.getOrDefault( parent, 0 ) + change;
+			if ( count <= 0 ) {
+				pendingChildCount.remove( parent );
 			} else {
-				Vector <Path> copyUpdateItems = new Vector<Path> ( updateItems );
-				for ( Path location : copyUpdateItems ) {
-					library.getLoader().queueUpdatePath ( location );
-					updateItems.remove( location );
-				}
+				pendingChildCount.put( parent, count );
 			}
 		}
 	}
-	
-	public void addUpdateItem ( Path location ) {
-		counter = DELAY_LENGTH_MS;
-		if ( !updateItems.contains( location ) ) {
-			updateItems.add ( location );
+
+	private void scheduleRelease ( long dueMS ) {
+		if ( nextRelease != null && dueMS >= nextReleaseMS ) {
+			return;
+		}
+		if ( nextRelease != null ) {
+			nextRelease.cancel( false );
+		}
+		nextReleaseMS = dueMS;
+		nextRelease = executor.schedule( this::release, Math.max( 0, dueMS - System.currentTimeMillis() ), TimeUnit.MILLISECONDS );
+	}
+
+	private void release () {
+		List <Path> due = new ArrayList <> ();
+		synchronized ( this ) {
+			nextRelease = null;
+			nextReleaseMS = Long.MAX_VALUE;
+			long now = System.currentTimeMillis();
+			long nextDueMS = Long.MAX_VALUE;
+			Iterator <Map.Entry <Path, Pending>> iterator = pending.entrySet().iterator();
+			while ( iterator.hasNext() ) {
+				Map.Entry <Path, Pending> entry = iterator.next();
+				long dueMS = entry.getValue().dueMS();
+				if ( dueMS <= now ) {
+					due.add( entry.getKey() );
+					iterator.remove();
+					if ( !entry.getValue().deleted ) {
+						countChild( entry.getKey(), -1 );
+					}
+				} else {
+					nextDueMS = Math.min( nextDueMS, dueMS );
+				}
+			}
+			if ( nextDueMS != Long.MAX_VALUE ) {
+				scheduleRelease( nextDueMS );
+			}
+		}
+		try {
+			for ( Path location : due ) {
+				library.getLoader().queueUpdatePath ( location );
+			}
+		} catch ( Exception e ) {
+			LOGGER.log ( Level.INFO, "Unable to queue delayed updates.", e );
 		}
 	}
-};
+}
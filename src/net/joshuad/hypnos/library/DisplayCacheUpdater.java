@@ -0,0 +1,84 @@
+package net.joshuad.hypnos.library;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+// Pushes pending CachedList changes to their display caches for every CachedList. It only runs
+// while some list has changes waiting, and then delivers them once per FX pulse, higher
+// priority lists first. Lower priority lists wait for the next pulse if the budget is used up.
+class DisplayCacheUpdater {
+	private static final Logger LOGGER = Logger.getLogger(DisplayCacheUpdater.class.getName());
+
+	// A pulse is ~16ms at 60fps, leave some of it for layout and rendering
+	private static final long PULSE_BUDGET_NS = 8_000_000;
+
+	private static final DisplayCacheUpdater instance = new DisplayCacheUpdater();
+
+	private final Set<CachedList<?>> dirtyLists = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	// Created on the FX thread the first time it's needed, the toolkit has to be running for it
+	private AnimationTimer pulseTimer;
+
+	static DisplayCacheUpdater get() {
+		return instance;
+	}
+
+	void requestUpdate(CachedList<?> list) {
+		dirtyLists.add(list);
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				Platform.runLater(this::startTimer);
+			} catch (IllegalStateException e) {
+				scheduled.set(false);
+				LOGGER.log(Level.INFO, "FX toolkit isn't running, unable to update display cache.", e);
+			}
+		}
+	}
+
+	private void startTimer() {
+		if (pulseTimer == null) {
+			pulseTimer = new AnimationTimer() {
+				@Override
+				public void handle(long now) {
+					deliver();
+				}
+			};
+		}
+		pulseTimer.start();
+	}
+
+	private void deliver() {
+		List<CachedList<?>> lists = new ArrayList<>(dirtyLists);
+		lists.sort(Comparator.comparing(CachedList::getUpdatePriority));
+		long startTime = System.nanoTime();
+		for (CachedList<?> list : lists) {
+			if (System.nanoTime() - startTime > PULSE_BUDGET_NS) {
+				break;
+			}
+			// Removed before applying, so changes that arrive while applying mark it dirty again
+			dirtyLists.remove(list);
+			try {
+				list.applyPendingChanges();
+			} catch (Exception e) {
+				LOGGER.log(Level.INFO, "Exception while updating display cache, continuing.", e);
+			}
+		}
+		if (dirtyLists.isEmpty()) {
+			pulseTimer.stop();
+			scheduled.set(false);
+			if (!dirtyLists.isEmpty() && scheduled.compareAndSet(false, true)) {
+				pulseTimer.start();
+			}
+		}
+	}
+}
@@ -47,6 +47,10 @@ class FileTreeNode implements Serializable {
 	Track getTrack() {
 		return track;
 	}
+	
+	void setTrack( Track track ) {
+		this.track = track;
+	}
 
 	void setAlbum( Album album ) {
 		this.album = album;
@@ -0,0 +1,132 @@
+package net.joshuad.hypnos.library;
+
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.joshuad.hypnos.Hypnos;
+import net.joshuad.hypnos.audio.AudioSystem;
+
+// Keeps the disk reader to a share of the disk's time rather than sleeping a fixed amount per
+// directory. Readers report how long each file took to read, and the scan pays that back as
+// sleep in proportion to the budget, so a slow disk gets longer rests than a fast one. While
+// music is playing off the same device as the scan, the budget drops so playback doesn't stutter.
+class IoThrottle {
+	private static final Logger LOGGER = Logger.getLogger(IoThrottle.class.getName());
+
+	// Share of wall time the scan may spend reading
+	private static final double HIGH_BUDGET = 1;
+	private static final double MED_BUDGET = 0.5;
+	private static final double LOW_BUDGET = 0.2;
+	private static final double PLAYBACK_BUDGET = 0.1;
+
+	// Sleeps shorter than this are saved up rather than taken
+	private static final long MIN_SLEEP_NS = 5_000_000;
+	private static final long MAX_SLEEP_NS = 1_000_000_000;
+
+	private final Library library;
+
+	private FileStore scanStore = null;
+	private Track lastPlayingTrack = null;
+	private boolean playingFromScanStore = false;
+
+	private long debtNS = 0;
+	private long filesRead = 0;
+	private long readNS = 0;
+	private long scanStartNS = 0;
+
+	IoThrottle(Library library) {
+		this.library = library;
+	}
+
+	synchronized void startScan(Path root) {
+		scanStore = getFileStore(root);
+		lastPlayingTrack = null;
+		playingFromScanStore = false;
+		debtNS = 0;
+		filesRead = 0;
+		readNS = 0;
+		scanStartNS = System.nanoTime();
+	}
+
+	// Called by the tag readers after each file
+	synchronized void recordRead(long nanos) {
+		filesRead++;
+		readNS += nanos;
+		double budget = getBudget();
+		if (budget < 1) {
+			debtNS += (long) (nanos * (1 - budget) / budget);
+		}
+	}
+
+	// Called by the disk walk between files, sleeps off whatever the readers have run up
+	void pause() {
+		long sleepNS;
+		synchronized (this) {
+			if (debtNS < MIN_SLEEP_NS) {
+				return;
+			}
+			sleepNS = Math.min(debtNS, MAX_SLEEP_NS);
+			debtNS -= sleepNS;
+		}
+		try {
+			Thread.sleep(sleepNS / 1_000_000, (int) (sleepNS % 1_000_000));
+		} catch (InterruptedException e) {
+			LOGGER.log(Level.INFO, "Interrupted during sleep in disk reader, if this persists the loader speed may be ignored.", e);
+		}
+	}
+
+	synchronized String getSummary() {
+		double seconds = (System.nanoTime() - scanStartNS) / 1e9;
+		double meanLatencyMS = filesRead == 0 ? 0 : readNS / 1e6 / filesRead;
+		return String.format("%d files read, mean latency %.1f ms, %.1f files/s", filesRead, meanLatencyMS,
+				seconds <= 0 ? 0 : filesRead / seconds);
+	}
+
+	private double getBudget() {
+		double budget;
+		switch (Hypnos.getLoaderSpeed()) {
+		case LOW:
+			budget = LOW_BUDGET;
+			break;
+		case MED:
+			budget = MED_BUDGET;
+			break;
+		case HIGH:
+		default:
+			budget = HIGH_BUDGET;
+			break;
+		}
+		if (isPlayingFromScanStore()) {
+			budget = Math.min(budget, PLAYBACK_BUDGET);
+		}
+		return budget;
+	}
+
+	private boolean isPlayingFromScanStore() {
+		AudioSystem audioSystem = library.getAudioSystem();
+		if (audioSystem == null || scanStore == null || !audioSystem.isPlaying()) {
+			return false;
+		}
+		Track playing = audioSystem.getCurrentTrack();
+		if (playing == null) {
+			return false;
+		}
+		// Looking up a file store is slow on some systems, so only do it when the track changes
+		if (playing != lastPlayingTrack) {
+			lastPlayingTrack = playing;
+			playingFromScanStore = scanStore.equals(getFileStore(playing.getPath()));
+		}
+		return playingFromScanStore;
+	}
+
+	private static FileStore getFileStore(Path path) {
+		try {
+			return Files.getFileStore(path);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
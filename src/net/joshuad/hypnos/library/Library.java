@@ -2,20 +2,21 @@ package net.joshuad.hypnos.library;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Vector;
-import java.util.logging.Level;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
 import me.xdrop.fuzzywuzzy.FuzzySearch;
-import net.joshuad.hypnos.AlphanumComparator;
+import net.joshuad.hypnos.CurrentListTrack;
 import net.joshuad.hypnos.Utils;
 import net.joshuad.hypnos.audio.AudioSystem;
 import net.joshuad.hypnos.fxui.FXUI;
@@ -29,36 +30,57 @@ public class Library {
 
 	// These are all three representations of the same data. Add stuff to the
 	// Observable List, the other two can't accept add.
-	private final CachedList<Track> tracks = new CachedList<>();
+	private final CachedList<Track> tracks = new CachedList<>(CachedList.UpdatePriority.HIGH);
 	private final FilteredList<Track> tracksFiltered = new FilteredList<>(tracks.getDisplayItems(), p -> true);
 	private final SortedList<Track> tracksSorted = new SortedList<>(tracksFiltered);
 
-	private final CachedList<Album> albums = new CachedList<>();
+	private final CachedList<Album> albums = new CachedList<>(CachedList.UpdatePriority.HIGH);
 	private final FilteredList<Album> albumsFiltered = new FilteredList<>(albums.getDisplayItems(), p -> true);
 	private final SortedList<Album> albumsSorted = new SortedList<>(albumsFiltered);
 
 	private final CachedList<Artist> artists = new CachedList<>();
 	private final FilteredList<Artist> artistsFiltered = new FilteredList<>(artists.getDisplayItems(), p -> true);
 	private final SortedList<Artist> artistsSorted = new SortedList<>(artistsFiltered);
+	private final ArtistIndex artistIndex = new ArtistIndex(artists);
 
 	private final CachedList<Playlist> playlists = new CachedList<>();
 	private final FilteredList<Playlist> playlistsFiltered = new FilteredList<>(playlists.getDisplayItems(), p -> true);
 	private final SortedList<Playlist> playlistsSorted = new SortedList<>(playlistsFiltered);
 
-	private final CachedList<TagError> tagErrors = new CachedList<>();
+	private final CachedList<TagError> tagErrors = new CachedList<>(CachedList.UpdatePriority.LOW);
 	private final FilteredList<TagError> tagErrorsFiltered = new FilteredList<>(tagErrors.getDisplayItems(), p -> true);
 	private final SortedList<TagError> tagErrorsSorted = new SortedList<>(tagErrorsFiltered);
 
 	private final CachedList<MusicRoot> musicRoots = new CachedList<>();
 
+	// Lookup indexes over the base lists, keyed by absolute path. Kept in sync by
+	// addTrack/removeTrack/addAlbum/removeAlbum, so don't modify the base lists directly.
+	private final ConcurrentHashMap<Path, Track> tracksByPath = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Path, Album> albumsByPath = new ConcurrentHashMap<>();
+	private final DirectoryIndex<Track> tracksByDirectory = new DirectoryIndex<>();
+	private final DirectoryIndex<Album> albumsByDirectory = new DirectoryIndex<>();
+	private final RootPartitions<Track> tracksByRoot = new RootPartitions<>(Track::getPath);
+	private final RootPartitions<Album> albumsByRoot = new RootPartitions<>(Album::getPath);
+	private volatile Set<Path> musicRootPaths = new HashSet<>();
+	private volatile long musicRootPathsVersion = -1;
+
+	// Paths of library tracks added, removed or retagged since playlists and the current list were
+	// last relinked. Until the first relink everything is linked, since nothing has been yet.
+	private final Set<Path> pathsToRelink = ConcurrentHashMap.newKeySet();
+	private volatile boolean relinkEverything = true;
+
 	private AudioSystem audioSystem;
 	private final LibraryLoader loader;
 	private final DiskWatcher diskWatcher;
 	private final LibraryScanLogger scanLogger = new LibraryScanLogger();
 	
 	private boolean dataNeedsToBeSavedToDisk = false;
-	private boolean upkeepNeeded = false;
-	private final Object doUpkeepFlagLock = new Object();
+
+	// Artist updates and relinking wait for a burst of changes to settle, but not forever
+	private static final long UPKEEP_QUIET_MS = 1000;
+	private static final long UPKEEP_MAX_DELAY_MS = 10000;
+	private final DebouncedTask upkeep = new DebouncedTask("Library Upkeep", UPKEEP_QUIET_MS, UPKEEP_MAX_DELAY_MS,
+			this::doUpkeep);
 
 	public Library() {
 		diskWatcher = new DiskWatcher(this, scanLogger);
@@ -67,39 +89,37 @@ public class Library {
 			@Override
 			public void invalidated(Observable arg0) {
 				dataNeedsToBeSavedToDisk = true;
-				synchronized (doUpkeepFlagLock) {
-					upkeepNeeded = true;
-				}
+				upkeep.request();
 			}
 		};
 		tracks.addListenerToBase(invalidationListener);
 		albums.addListenerToBase(invalidationListener);
-		Thread artistGeneratorThread = new Thread() {
+		tracks.addListChangeListenerToBase(new ListChangeListener<Track>() {
 			@Override
-			public void run() {
-				while (true) {
-					boolean doUpkeep = false;
-					synchronized (doUpkeepFlagLock) {
-						doUpkeep = upkeepNeeded;
-						upkeepNeeded = false;
+			public void onChanged(Change<? extends Track> change) {
+				while (change.next()) {
+					for (Track track : change.getRemoved()) {
+						artistIndex.queueUpdate(track);
+					}
+					for (Track track : change.getAddedSubList()) {
+						artistIndex.queueUpdate(track);
 					}
-					if (doUpkeep) {
-						scanLogger.println("[Library] Changes to library were made, regenerating artist list");
-						artists.getItemsCopy().setAll(generateArtists());
-						relinkPlaylistsToLibrary();
-						relinkCurrentListToLibrary();
+				}
+			}
+		});
+		albums.addListChangeListenerToBase(new ListChangeListener<Album>() {
+			@Override
+			public void onChanged(Change<? extends Album> change) {
+				while (change.next()) {
+					for (Album album : change.getRemoved()) {
+						artistIndex.queueUpdate(album);
 					}
-					try {
-						Thread.sleep(2000);
-					} catch (InterruptedException e) {
-						LOGGER.log(Level.INFO, "Sleep interupted during wait period.", e);
+					for (Album album : change.getAddedSubList()) {
+						artistIndex.queueUpdate(album);
 					}
 				}
 			}
-		};
-		artistGeneratorThread.setName("Artist Generator");
-		artistGeneratorThread.setDaemon(true);
-		artistGeneratorThread.start();
+		});
 	}
 
 	public void setUI(FXUI ui) {
@@ -115,16 +135,16 @@ public class Library {
 		return playlistsSorted;
 	}
 
-	public ObservableList<Playlist> getPlaylistData() {
-		return playlists.getItemsCopy();
+	public List<Playlist> getPlaylistData() {
+		return playlists.getSnapshot();
 	}
 
 	public ObservableList<Playlist> getPlaylistsDisplayCache() {
 		return playlists.getDisplayItems();
 	}
 
-	public ObservableList<MusicRoot> getMusicRootData() {
-		return musicRoots.getItemsCopy();
+	public List<MusicRoot> getMusicRootData() {
+		return musicRoots.getSnapshot();
 	}
 
 	public ObservableList<MusicRoot> getMusicRootDisplayCache() {
@@ -143,24 +163,24 @@ public class Library {
 		return albumsFiltered;
 	}
 
-	public ObservableList<Track> getTrackData() {
-		return tracks.getItemsCopy();
+	public List<Track> getTrackData() {
+		return tracks.getSnapshot();
 	}
 
 	public ObservableList<Track> getTrackDisplayCache() {
 		return tracks.getDisplayItems();
 	}
 
-	public ObservableList<Album> getAlbumData() {
-		return albums.getItemsCopy();
+	public List<Album> getAlbumData() {
+		return albums.getSnapshot();
 	}
 
 	public ObservableList<Album> getAlbumDisplayCache() {
 		return albums.getDisplayItems();
 	}
 
-	public ObservableList<Artist> getArtistData() {
-		return artists.getItemsCopy();
+	public List<Artist> getArtistData() {
+		return artists.getSnapshot();
 	}
 
 	public ObservableList<Artist> getArtistDisplayCache() {
@@ -201,7 +221,7 @@ public class Library {
 		for (MusicRoot musicRoot : roots) {
 			musicRoot.setNeedsRescan(true);
 		}
-		musicRoots.getItemsCopy().setAll(roots);
+		musicRoots.setAll(roots);
 	}
 	
 	public void setDataOnInitialLoad(List<Playlist> playlists) {
@@ -211,7 +231,19 @@ public class Library {
 	public void setDataOnInitialLoad(List<Track> tracks, List<Album> albums) {
 		this.tracks.setDataOnInitialLoad(tracks);
 		this.albums.setDataOnInitialLoad(albums);
-		this.artists.setDataOnInitialLoad(generateArtists());
+		Set<Path> rootPaths = getMusicRootPaths();
+		for (Track track : tracks) {
+			tracksByPath.put(track.getPath().toAbsolutePath(), track);
+			tracksByDirectory.add(track.getPath(), track);
+			tracksByRoot.add(track, rootPaths);
+		}
+		for (Album album : albums) {
+			albumsByPath.put(album.getPath().toAbsolutePath(), album);
+			albumsByDirectory.add(album.getPath(), album);
+			albumsByRoot.add(album, rootPaths);
+		}
+		this.artists.setDataOnInitialLoad(artistIndex.setDataOnInitialLoad(tracks, albums));
+		relinkEverything = true;
 		List<TagError> errors = new ArrayList<>();
 		for(Track track : tracks) {
 			errors.addAll(track.getTagErrors());
@@ -220,7 +252,7 @@ public class Library {
 	}
 
 	public void addMusicRoot(Path path) {
-		for (MusicRoot root : musicRoots.getItemsCopy()) {
+		for (MusicRoot root : musicRoots.getSnapshot()) {
 			if(root.getPath().equals(path)) {
 				return;
 			}
@@ -229,8 +261,9 @@ public class Library {
 	}
 
 	public void removeMusicRoot(MusicRoot musicRoot) {
-		loader.interruptDiskReader();
+		// Removed first, so a scanner that hasn't reached it yet skips it
 		musicRoots.remove(musicRoot, true);
+		loader.interruptDiskReader(musicRoot);
 		loader.setMusicRootRemoved(true);
 	}
 
@@ -239,6 +272,8 @@ public class Library {
 	}
 
 	public void addPlaylist(Playlist playlist) {
+		// Upkeep only relinks paths that change, so a new playlist is linked in full here
+		linkPlaylistToLibrary(playlist);
 		playlists.addItem(playlist, true);
 	}
 
@@ -259,7 +294,7 @@ public class Library {
 		int number = 0;
 		while (true) {
 			boolean foundMatch = false;
-			for (Playlist playlist : playlists.getItemsCopy()) {
+			for (Playlist playlist : playlists.getSnapshot()) {
 				if (playlist.getName().toLowerCase().equals(name.toLowerCase())) {
 					foundMatch = true;
 				}
@@ -274,68 +309,6 @@ public class Library {
 		return name;
 	}
 
-	private List<Artist> generateArtists() {
-		List<Artist> newArtistList = new ArrayList<>();
-		List<Album> libraryAlbums = new ArrayList<>(albums.getItemsCopy());
-		Album[] albumArray = libraryAlbums.toArray(new Album[libraryAlbums.size()]);
-		AlphanumComparator comparator = new AlphanumComparator(AlphanumComparator.CaseHandling.CASE_INSENSITIVE);
-		Arrays.sort(albumArray, Comparator.comparing(Album::getAlbumArtist, comparator));
-		Artist lastArtist = null;
-		for (Album album : albumArray) {
-			if (album.getAlbumArtist().isBlank()) {
-				continue;
-			}
-			if (lastArtist != null && lastArtist.getName().equals(album.getAlbumArtist())) {
-				lastArtist.addAlbum(album);
-			} else {
-				Artist artist = null;
-				for (Artist test : newArtistList) {
-					if (test.getName().equalsIgnoreCase(album.getAlbumArtist())) {
-						artist = test;
-						break;
-					}
-				}
-				if (artist == null) {
-					artist = new Artist(album.getAlbumArtist());
-					newArtistList.add(artist);
-				}
-				artist.addAlbum(album);
-				lastArtist = artist;
-			}
-		}
-		List<Track> looseTracks = new ArrayList<>();
-		for (Track track : tracks.getItemsCopy()) {
-			if (track.getAlbum() == null) {
-				looseTracks.add(track);
-			}
-		}
-		Track[] trackArray = looseTracks.toArray(new Track[looseTracks.size()]);
-		Arrays.sort(trackArray, Comparator.comparing(Track::getAlbumArtist, comparator));
-		lastArtist = null;
-		for (Track track : trackArray) {
-			if (track.getAlbumArtist().isBlank())
-				continue;
-			if (lastArtist != null && lastArtist.getName().equals(track.getAlbumArtist())) {
-				lastArtist.addLooseTrack(track);
-			} else {
-				Artist artist = null;
-				for (Artist test : newArtistList) {
-					if (test.getName().equalsIgnoreCase(track.getAlbumArtist())) {
-						artist = test;
-						break;
-					}
-				}
-				if (artist == null) {
-					artist = new Artist(track.getAlbumArtist());
-					newArtistList.add(artist);
-				}
-				artist.addLooseTrack(track);
-				lastArtist = artist;
-			}
-		}
-		return newArtistList;
-	}
-
 	LibraryLoader getLoader() {
 		return loader;
 	}
@@ -348,52 +321,170 @@ public class Library {
 		this.dataNeedsToBeSavedToDisk = b;
 	}
 
+	public Track getTrack(Path path) {
+		return tracksByPath.get(path.toAbsolutePath());
+	}
+
+	public Album getAlbum(Path path) {
+		return albumsByPath.get(path.toAbsolutePath());
+	}
+
+	List<Track> getTracksInDirectory(Path directory) {
+		return tracksByDirectory.getItemsIn(directory);
+	}
+
+	List<Album> getAlbumsInDirectory(Path directory) {
+		return albumsByDirectory.getItemsIn(directory);
+	}
+
+	// Subdirectories of directory that have tracks or albums somewhere under them
+	Set<Path> getChildDirectories(Path directory) {
+		Set<Path> retMe = new HashSet<>(tracksByDirectory.getChildDirectories(directory));
+		retMe.addAll(albumsByDirectory.getChildDirectories(directory));
+		return retMe;
+	}
+
+	List<Path> getTrackDirectories() {
+		return tracksByDirectory.getDirectories();
+	}
+
+	List<Path> getAlbumDirectories() {
+		return new ArrayList<>(albumsByPath.keySet());
+	}
+
+	Set<Path> getMusicRootPaths() {
+		long version = musicRoots.getVersion();
+		if (version != musicRootPathsVersion) {
+			Set<Path> paths = new HashSet<>();
+			for (MusicRoot root : musicRoots.getSnapshot()) {
+				paths.add(root.getPath().toAbsolutePath());
+			}
+			musicRootPaths = paths;
+			musicRootPathsVersion = version;
+		}
+		return musicRootPaths;
+	}
+
+	// Albums and tracks that aren't under any of the current music roots
+	List<Album> findOrphanedAlbums() {
+		return albumsByRoot.findOrphans(getMusicRootPaths());
+	}
+
+	List<Track> findOrphanedTracks() {
+		return tracksByRoot.findOrphans(getMusicRootPaths());
+	}
+
+	// Everything at or below path, i.e. every item whose path startsWith(path)
+	List<Track> getTracksAtOrBelow(Path path) {
+		List<Track> retMe = tracksByDirectory.getItemsUnder(path);
+		Track track = getTrack(path);
+		if (track != null) {
+			retMe.add(track);
+		}
+		return retMe;
+	}
+
+	List<Album> getAlbumsAtOrBelow(Path path) {
+		List<Album> retMe = albumsByDirectory.getItemsUnder(path);
+		Album album = getAlbum(path);
+		if (album != null) {
+			retMe.add(album);
+		}
+		return retMe;
+	}
+
+	// The indexes are updated before the base lists, so they're current by the time
+	// listeners on the base lists hear about the change
 	void addTrack(Track track) {
+		tracksByPath.put(track.getPath().toAbsolutePath(), track);
+		tracksByDirectory.add(track.getPath(), track);
+		tracksByRoot.add(track, getMusicRootPaths());
 		tracks.addItem(track);
+		pathsToRelink.add(track.getPath().toAbsolutePath());
 		for (TagError error : track.getTagErrors()) {
 			tagErrors.addItem(error);
 		}
 	}
 
 	void removeTrack(Track track) {
+		tracksByPath.remove(track.getPath().toAbsolutePath());
+		tracksByDirectory.remove(track.getPath(), track);
+		tracksByRoot.remove(track);
 		tracks.remove(track);
+		pathsToRelink.add(track.getPath().toAbsolutePath());
 		for (TagError error : track.getTagErrors()) {
 			tagErrors.remove(error);
 		}
 	}
 
+	void removeTracks(List<Track> removeMe) {
+		List<TagError> errors = new ArrayList<>();
+		for (Track track : removeMe) {
+			tracksByPath.remove(track.getPath().toAbsolutePath());
+			tracksByDirectory.remove(track.getPath(), track);
+			tracksByRoot.remove(track);
+			pathsToRelink.add(track.getPath().toAbsolutePath());
+			errors.addAll(track.getTagErrors());
+		}
+		tracks.removeAll(removeMe);
+		tagErrors.removeAll(errors);
+	}
+
 	void addAlbum(Album album) {
+		albumsByPath.put(album.getPath().toAbsolutePath(), album);
+		albumsByDirectory.add(album.getPath(), album);
+		albumsByRoot.add(album, getMusicRootPaths());
 		albums.addItem(album);
 	}
 
 	void notAnAlbum(Path path) {
-		for (Album album : albums.getItemsCopy()) {
-			if (album.getPath().equals(path)) {
-				albums.remove(album);
-				break;
-			}
+		Album album = albumsByPath.remove(path.toAbsolutePath());
+		if (album != null) {
+			albumsByDirectory.remove(album.getPath(), album);
+			albumsByRoot.remove(album);
+			albums.remove(album);
 		}
 	}
 
 	void removeAlbum(Album album) {
+		albumsByPath.remove(album.getPath().toAbsolutePath());
+		albumsByDirectory.remove(album.getPath(), album);
+		albumsByRoot.remove(album);
 		albums.remove(album);
 	}
+
+	void removeAlbums(List<Album> removeMe) {
+		for (Album album : removeMe) {
+			albumsByPath.remove(album.getPath().toAbsolutePath());
+			albumsByDirectory.remove(album.getPath(), album);
+			albumsByRoot.remove(album);
+		}
+		albums.removeAll(removeMe);
+	}
 	
-	void requestRegenerateArtists() {
-		upkeepNeeded = true;
+	void requestArtistUpdate(Track track) {
+		artistIndex.queueUpdate(track);
+		pathsToRelink.add(track.getPath().toAbsolutePath());
+		if (track.getAlbum() != null) {
+			artistIndex.queueUpdate(track.getAlbum());
+		}
+		upkeep.request();
+	}
+
+	void requestArtistUpdate(Album album) {
+		artistIndex.queueUpdate(album);
+		for (Track track : album.getTracks()) {
+			pathsToRelink.add(track.getPath().toAbsolutePath());
+		}
+		upkeep.request();
 	}
 	
 	public boolean isArtistDirectory(Path path) {
-		String directoryName = Utils.prepareArtistForCompare(path.getFileName().toString());
-		List<Album> albumsInPath = new ArrayList<>();
-		for (Album album : albums.getItemsCopy()) {
-			if (album.getPath().getParent().equals(path)) {
-				albumsInPath.add(album);
-			}
-		}
+		String directoryName = NameNormalizer.artistKey(path.getFileName().toString());
+		List<Album> albumsInPath = getAlbumsInDirectory(path);
 		List<Track> tracksInPath = new ArrayList<>();
-		for (Track track : tracks.getItemsCopy()) {
-			if (track.getPath().getParent().equals(path) && track.getAlbum() == null) {
+		for (Track track : getTracksInDirectory(path)) {
+			if (track.getAlbum() == null) {
 				tracksInPath.add(track);
 			}
 		}
@@ -402,8 +493,8 @@ public class Library {
 		}
 		for (Album album : albumsInPath) {
 			try {
-				int matchPercent = FuzzySearch.weightedRatio(directoryName, Utils.prepareArtistForCompare(album.getAlbumArtist()));
-				if (matchPercent < 90) {
+				String artistName = NameNormalizer.artistKey(album.getAlbumArtist());
+				if (!directoryName.equals(artistName) && FuzzySearch.weightedRatio(directoryName, artistName) < 90) {
 					return false;
 				}
 			} catch (Exception e) {
@@ -412,8 +503,8 @@ public class Library {
 		}
 		for (Track track : tracksInPath) {
 			try {
-				int matchPercent = FuzzySearch.weightedRatio(directoryName, Utils.prepareArtistForCompare(track.getAlbumArtist()));
-				if (matchPercent < 90) {
+				String artistName = NameNormalizer.artistKey(track.getAlbumArtist());
+				if (!directoryName.equals(artistName) && FuzzySearch.weightedRatio(directoryName, artistName) < 90) {
 					return false;
 				}
 			} catch (Exception e) {
@@ -423,38 +514,102 @@ public class Library {
 		return true;
 	}
 	
-	private void relinkCurrentListToLibrary() {
-		for (int k = 0; k < audioSystem.getCurrentList().getItems().size(); k++ ) {
-			boolean foundInLibrary = false;
-			for (Track libraryTrack : tracks.getItemsCopy()) {
-				if (libraryTrack.equals(audioSystem.getCurrentList().getItems().get(k))) {
-					audioSystem.getCurrentList().getItems().get(k).setData(libraryTrack);
-					foundInLibrary = true;
-				}
+	// Returns false if it stopped early because more changes came in, it'll be run again once they settle
+	private boolean doUpkeep() {
+		int updateCount = artistIndex.applyPendingUpdates(this, upkeep::isStale);
+		scanLogger.println("[Library] Changes to library were made, updated artists for " + updateCount + " items");
+		if (upkeep.isStale()) {
+			return false;
+		}
+		Set<Path> changedPaths = takePathsToRelink();
+		if (!relinkPlaylistsToLibrary(changedPaths) || !relinkCurrentListToLibrary(changedPaths)) {
+			if (changedPaths == null) {
+				relinkEverything = true;
+			} else {
+				pathsToRelink.addAll(changedPaths);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	// Returns null if everything needs to be relinked
+	private Set<Path> takePathsToRelink() {
+		if (relinkEverything) {
+			relinkEverything = false;
+			pathsToRelink.clear();
+			return null;
+		}
+		Set<Path> retMe = new HashSet<>();
+		Iterator<Path> iterator = pathsToRelink.iterator();
+		while (iterator.hasNext()) {
+			retMe.add(iterator.next());
+			iterator.remove();
+		}
+		return retMe;
+	}
+
+	private boolean relinkCurrentListToLibrary(Set<Path> changedPaths) {
+		if (changedPaths != null && changedPaths.isEmpty()) {
+			return true;
+		}
+		List<CurrentListTrack> currentListTracks = audioSystem.getCurrentList().getItems();
+		for (int k = 0; k < currentListTracks.size(); k++) {
+			if (upkeep.isStale()) {
+				return false;
 			}
-			if(!foundInLibrary) {
-				audioSystem.getCurrentList().getItems().get(k).setAlbum(null);
+			CurrentListTrack currentListTrack = currentListTracks.get(k);
+			Path path = currentListTrack.getPath().toAbsolutePath();
+			if (changedPaths != null && !changedPaths.contains(path)) {
+				continue;
+			}
+			Track libraryTrack = tracksByPath.get(path);
+			if (libraryTrack != null) {
+				currentListTrack.setData(libraryTrack);
+			} else {
+				currentListTrack.setAlbum(null);
 			}
 		}
+		return true;
 	}
-	
-	private void relinkPlaylistsToLibrary() {
-		for (Playlist playlist : playlists.getItemsCopy()) {
-			linkPlaylistToLibrary(playlist);
+
+	private boolean relinkPlaylistsToLibrary(Set<Path> changedPaths) {
+		if (changedPaths != null && changedPaths.isEmpty()) {
+			return true;
+		}
+		for (Playlist playlist : playlists.getSnapshot()) {
+			if (upkeep.isStale()) {
+				return false;
+			}
+			linkPlaylistToLibrary(playlist, changedPaths);
+		}
+		return true;
+	}
+
+	public void linkPlaylistsToLibrary(List<Playlist> playlists) {
+		for (Playlist playlist : playlists) {
+			linkPlaylistToLibrary(playlist, null);
 		}
 	}
 
 	public void linkPlaylistToLibrary(Playlist playlist) {
-		for (int k = 0; k < playlist.getTracks().size(); k++ ) {
-			boolean foundInLibrary = false;
-			for (Track libraryTrack : tracks.getItemsCopy()) {
-				if (libraryTrack.equals(playlist.getTracks().get(k))) {
-					playlist.getTracks().set(k, libraryTrack);
-					foundInLibrary = true;
-				}
+		linkPlaylistToLibrary(playlist, null);
+	}
+
+	// Only entries whose path is in changedPaths are looked at, or every entry if it's null
+	private void linkPlaylistToLibrary(Playlist playlist, Set<Path> changedPaths) {
+		List<Track> playlistTracks = playlist.getTracks();
+		for (int k = 0; k < playlistTracks.size(); k++) {
+			Track playlistTrack = playlistTracks.get(k);
+			Path path = playlistTrack.getPath().toAbsolutePath();
+			if (changedPaths != null && !changedPaths.contains(path)) {
+				continue;
 			}
-			if(!foundInLibrary) {
-				playlist.getTracks().get(k).setAlbum(null);
+			Track libraryTrack = tracksByPath.get(path);
+			if (libraryTrack == null) {
+				playlistTrack.setAlbum(null);
+			} else if (libraryTrack != playlistTrack) {
+				playlistTracks.set(k, libraryTrack);
 			}
 		}
 	}
@@ -463,13 +618,17 @@ public class Library {
 		this.audioSystem = audioSystem;
 	}
 
-	public void removeTagErrors(Vector<TagError> errors) {
+	AudioSystem getAudioSystem() {
+		return audioSystem;
+	}
+
+	public void removeTagErrors(List<TagError> errors) {
 		for (TagError error : errors) {
 			tagErrors.remove(error);
 		}
 	}
 	
-	public void addTagErrors(Vector<TagError> errors) {
+	public void addTagErrors(List<TagError> errors) {
 		for (TagError error : errors) {
 			tagErrors.addItem(error);
 		}
@@ -1,24 +1,30 @@
 package net.joshuad.hypnos.library;
 
-import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.joshuad.hypnos.CurrentListTrack;
 import net.joshuad.hypnos.Utils;
+import net.joshuad.hypnos.audio.AudioSystem;
 import net.joshuad.hypnos.fxui.FXUI;
 
 class LibraryLoader {
 	private static final Logger LOGGER = Logger.getLogger(LibraryLoader.class.getName());
-	private final ArrayList<Path> pathsToUpdate = new ArrayList<>();
+	private final PathUpdateQueue pathsToUpdate = new PathUpdateQueue();
 	private boolean clearOrphansAndMissing = false;
 	private boolean musicRootRemoved = false;
 	private Thread loaderThread;
 	private Library library;
 	private DiskReader diskReader;
+	private ScanCoordinator scanCoordinator;
+	private MissingFileVerifier missingFileVerifier;
 	private LibraryScanLogger scanLogger;
 	private FXUI ui;
 	
@@ -26,12 +32,15 @@ class LibraryLoader {
 		this.library = library;
 		this.scanLogger = scanLogger;
 		this.diskReader = new DiskReader(library, this, scanLogger);
+		this.scanCoordinator = new ScanCoordinator(library, this, scanLogger);
+		this.missingFileVerifier = new MissingFileVerifier(library, scanLogger);
 		setupLoaderThread();
 	}
 
 	public void setUI(FXUI ui) {
 		this.ui = ui;
 		diskReader.setUI(ui);
+		scanCoordinator.setUI(ui);
 	}
 
 	public void start() {
@@ -47,9 +56,41 @@ class LibraryLoader {
 	}
 
 	public void queueUpdatePath(Path path) {
-		if (!pathsToUpdate.contains(path)) {
-			pathsToUpdate.add(path);
+		pathsToUpdate.offer(path, isInCurrentList(path));
+	}
+
+	private Set<Path> currentListDirectories = new HashSet<>();
+	private long currentListDirectoriesMS = 0;
+
+	// Whether path is, holds, or is beside a track in the current list, so the rescans the user
+	// is most likely to notice go first.
+	private synchronized boolean isInCurrentList(Path path) {
+		AudioSystem audioSystem = library.getAudioSystem();
+		if (audioSystem == null) {
+			return false;
 		}
+		if (System.currentTimeMillis() - currentListDirectoriesMS > 1000) {
+			Set<Path> directories = new HashSet<>();
+			try {
+				for (CurrentListTrack track : new ArrayList<>(audioSystem.getCurrentList().getItems())) {
+					directories.add(track.getPath().toAbsolutePath().getParent());
+				}
+				currentListDirectories = directories;
+			} catch (ConcurrentModificationException e) {
+				// The list is being changed, keep the last directories and try again next time
+			}
+			currentListDirectoriesMS = System.currentTimeMillis();
+		}
+		path = path.toAbsolutePath();
+		if (currentListDirectories.contains(path) || currentListDirectories.contains(path.getParent())) {
+			return true;
+		}
+		for (Path directory : currentListDirectories) {
+			if (directory.startsWith(path)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	private long lastOrphanClearMS = 0;
@@ -71,31 +112,19 @@ class LibraryLoader {
 							clearOrphansAndMissing = false;
 							lastOrphanClearMS = System.currentTimeMillis();
 							clearOrphans(message);
-							clearMissing();
 							if (!message.isBlank()) {
 								ui.setLibraryLoaderStatusToStandby(null);
 							}
 							musicRootRemoved = false;
 						}
-						List<MusicRoot> libraryRoots = new ArrayList<>(library.getMusicRootData());
-						for (MusicRoot root : libraryRoots) {
-							if (root.needsInitialScan()) {
-								diskReader.scanMusicRoot(root, DiskReader.ScanMode.INITIAL_SCAN);
-							}
-						}
-						libraryRoots = new ArrayList<>(library.getMusicRootData());
-						for (MusicRoot root : libraryRoots) {
-							if (root.needsRescan()) {
-								diskReader.scanMusicRoot(root, DiskReader.ScanMode.RESCAN);
-							}
-						}
-						if (!pathsToUpdate.isEmpty()) {
-							synchronized (pathsToUpdate) {
-								Path pathToUpdate = pathsToUpdate.remove(0).toAbsolutePath();
-								updateLibraryAtPath(pathToUpdate);
-							}
+						missingFileVerifier.verifySome();
+						scanCoordinator.startScans(new ArrayList<>(library.getMusicRootData()));
+						Path pathToUpdate = pollUnblockedPath();
+						if (pathToUpdate != null) {
+							updateLibraryAtPath(pathToUpdate);
 						}
 						library.getDiskWatcher().processWatcherEvents();
+						library.getDiskWatcher().pollForChanges();
 						try {
 							Thread.sleep(50);
 						} catch (InterruptedException e) {
@@ -110,158 +139,94 @@ class LibraryLoader {
 		loaderThread.setDaemon(true);
 	}
 
+	private final List<Path> parkedPaths = new ArrayList<>();
+	private int parkedAtFinishedScanCount = 0;
+
+	// Paths under a root that's being scanned are parked until a scan finishes rather than put
+	// back in the queue, where they'd come straight back out ahead of everything else. The scan
+	// may have passed them already, so they still need updating afterwards.
+	private Path pollUnblockedPath() {
+		int finishedScanCount = scanCoordinator.getFinishedScanCount();
+		if (finishedScanCount != parkedAtFinishedScanCount && !parkedPaths.isEmpty()) {
+			for (Path path : parkedPaths) {
+				queueUpdatePath(path);
+			}
+			parkedPaths.clear();
+		}
+		parkedAtFinishedScanCount = finishedScanCount;
+		Path path;
+		while ((path = pathsToUpdate.poll()) != null) {
+			if (!scanCoordinator.isScanning(path)) {
+				return path;
+			}
+			parkedPaths.add(path);
+		}
+		return null;
+	}
+
 	public void updateLibraryAtPath(Path path) {
 		path = path.toAbsolutePath();
 		if (!Files.exists(path)) {
-			List<Track> tracksToRemove = new ArrayList<>();
-			for (Track track : library.getTrackData()) {
-				if (track.getPath().toAbsolutePath().startsWith(path)) {
-					tracksToRemove.add(track);
-				}
-			}
+			List<Track> tracksToRemove = library.getTracksAtOrBelow(path);
 			for (Track track : tracksToRemove) {
 				scanLogger.println("[LibraryLoader] Removing track data from track list: " + track.getPath());
 				library.removeTrack(track);
 			}
-			List<Album> albumsToRemove = new ArrayList<>();
-			for (Album album : library.getAlbumData()) {
-				if (album.getPath().toAbsolutePath().startsWith(path)) {
-					albumsToRemove.add(album);
-				}
-			}
+			List<Album> albumsToRemove = library.getAlbumsAtOrBelow(path);
 			for (Album album : albumsToRemove) {
 				scanLogger.println("[LibraryLoader] Removing album data from album list: " + path);
 				library.removeAlbum(album);
 				library.getDiskWatcher().stopWatching(album.getPath());
 			}
 		} else if (Utils.isMusicFile(path)) {
-			Track existingTrackAtPath = null;
-			for (Track track : library.getTrackData()) {
-				if (track.getPath().equals(path)) {
-					existingTrackAtPath = track;
-					break;
-				}
-			}
+			Track existingTrackAtPath = library.getTrack(path);
 			if (existingTrackAtPath != null) {
 				scanLogger.println("[LibraryLoader] Updating track data at: " + path);
 				existingTrackAtPath.refreshTagData();
 				// This will make sure that any existing album gets updated, and if the
 				// album has been destroyed on disk, it is removed from our library
-				pathsToUpdate.add(existingTrackAtPath.getPath().getParent());
-				library.requestRegenerateArtists();
+				queueUpdatePath(existingTrackAtPath.getPath().getParent());
+				library.requestArtistUpdate(existingTrackAtPath);
 			} else {
 				scanLogger.println("[LibraryLoader] new track found at: " + path);
 				Track newTrack = new Track(path, true);
-				library.getTrackData().remove(newTrack);
+				library.addTrack(newTrack);
 			}
 		} else if (Files.isDirectory(path)) {
 			scanLogger.println("[LibraryLoader] Doing directory rescan at: " + path);
-			List<Path> childrenOfPath = new ArrayList<>();
-			for (Path futureUpdate : pathsToUpdate) {
-				if (Utils.isChildOf(futureUpdate, path)) {
-					childrenOfPath.add(futureUpdate);
-					scanLogger.println("[LibraryLoader] - Removing future scan, its a child: " + path);
-				}
-			}
-			pathsToUpdate.removeAll(childrenOfPath);
 			diskReader.updatePath(path);
 		}
 	}
 
-	static long getDirectoryCount(Path dir) {
-		long retMe = 5000;
-		try {
-			retMe = Files.walk(dir, FileVisitOption.FOLLOW_LINKS).parallel().filter(p -> p.toFile().isDirectory()).count();
-		} catch (Exception e) {
-			LOGGER.log(Level.INFO, "Unable to count subdirectories, loader status bar will not be accurate", e);
-		}
-		return retMe;
-	}
-
-	private void clearMissing() {
-		List<Album> removeMeAlbums = new ArrayList<>();
-		for (Album album : library.getAlbumData()) {
-			if(!Files.isDirectory(album.getPath())) {
-				removeMeAlbums.add(album);
-			}
-		}
-		for (Album album : removeMeAlbums) {
-			library.removeAlbum(album);
-			scanLogger.println( "[LibraryLoader] Album pruned, directory missing from disk: " + album.getPath() );
-			//No need to remove tracks from the album, they'll be removed below
-		}
-		List<Track> removeMeTracks = new ArrayList<>();
-		for (Track track : library.getTrackData()) {
-			if(!Files.isRegularFile(track.getPath())) {
-				removeMeTracks.add(track);
-			}
-		}
-		for (Track track : removeMeTracks) {
-			library.removeTrack(track);
-			scanLogger.println( "[LibraryLoader] Track pruned, file missing from disk: " + track.getPath() );
-		}
-	}
-		
 	private void clearOrphans(String message) {
-		int totalCount = library.getAlbumData().size() + library.getTrackData().size() + 10; //10 for the removal time
-		int currentCount = 0;
-		List<Album> removeMeAlbums = new ArrayList<>();
-		for (Album album : library.getAlbumData()) {
-			currentCount++;
-			if(!message.isBlank()) {
-				ui.setLibraryLoaderStatus(message, currentCount/(double)totalCount, this);
-			}
-			boolean hasRoot = false;
-			for (MusicRoot root : library.getMusicRootData()) {
-				if (Utils.isChildOf(album.getPath(), root.getPath())) {
-					hasRoot = true;
-					break;
-				}
-				if(album.getPath().equals(root.getPath())) {
-					hasRoot = true;
-					break;
-				}
-			}
-			if (!hasRoot) {
-				removeMeAlbums.add(album);
-			}
+		if(!message.isBlank()) {
+			ui.setLibraryLoaderStatus(message, 0, this);
 		}
+		List<Album> removeMeAlbums = library.findOrphanedAlbums();
 		for (Album album : removeMeAlbums) {
-			library.removeAlbum(album);
-			//No need to remove tracks from the album, they'll be removed below
 			scanLogger.println( "[LibraryLoader] Orphan album pruned, no root: " + album.getPath() );
 		}
-
-		List<Track> removeMeTracks = new ArrayList<>();
-		for (Track track : library.getTrackData()) {
-			currentCount++;
-			if(!message.isBlank()) {
-				ui.setLibraryLoaderStatus(message, currentCount/(double)totalCount, this);
-			}
-			boolean hasRoot = false;
-			for (MusicRoot root : library.getMusicRootData()) {
-				if (Utils.isChildOf(track.getPath(), root.getPath())) {
-					hasRoot = true;
-					break;
-				}
-			}
-			if (!hasRoot) {
-				removeMeTracks.add(track);
-			}
+		//No need to remove tracks from the album, they'll be removed below
+		library.removeAlbums(removeMeAlbums);
+		if(!message.isBlank()) {
+			ui.setLibraryLoaderStatus(message, .5, this);
 		}
+		List<Track> removeMeTracks = library.findOrphanedTracks();
 		for (Track track : removeMeTracks) {
-			library.removeTrack(track);
 			scanLogger.println( "[LibraryLoader] Orphan track pruned, no root: " + track.getPath() );
 		}
+		library.removeTracks(removeMeTracks);
 	}
 
 	public void removeMusicRoot(MusicRoot musicRoot) {
 		diskReader.interrupt();
+		scanCoordinator.interrupt(musicRoot);
 		requestClearOrphans();
 	}
 	
-	void interruptDiskReader() {
+	void interruptDiskReader(MusicRoot musicRoot) {
 		diskReader.interrupt();
+		scanCoordinator.interrupt(musicRoot);
 	}
 
 	public void setMusicRootRemoved(boolean b) {
@@ -0,0 +1,210 @@
+package net.joshuad.hypnos.library;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import org.jaudiotagger.audio.AudioHeader;
+import org.jaudiotagger.audio.flac.FlacInfoReader;
+import org.jaudiotagger.audio.flac.FlacStreamReader;
+import org.jaudiotagger.audio.flac.metadatablock.BlockType;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
+import org.jaudiotagger.audio.mp3.MP3AudioHeader;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.flac.FlacTag;
+import org.jaudiotagger.tag.id3.ID3v23Tag;
+import org.jaudiotagger.tag.id3.ID3v24Tag;
+import org.jaudiotagger.tag.vorbiscomment.VorbisCommentReader;
+import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
+
+// Reads the audio header and text tags of MP3 and FLAC files for the library scan without reading
+// embedded pictures, which are often far larger than everything else we need. Pictures are seeked
+// past rather than read, and the rest is handed to jaudiotagger's own parsers, so the results are
+// the same as a full read. Returns null for anything it doesn't handle, and the caller does a full
+// read instead, which includes MP4 for now. Editing tags and loading artwork still go through
+// AudioFileIO.
+class MetadataReader {
+	private static final int ID3_HEADER_LENGTH = 10;
+	private static final int ID3_FRAME_HEADER_LENGTH = 10;
+
+	static class Metadata {
+		final AudioHeader audioHeader;
+		final Tag tag;
+
+		Metadata(AudioHeader audioHeader, Tag tag) {
+			this.audioHeader = audioHeader;
+			this.tag = tag;
+		}
+	}
+
+	static Metadata read(File file) {
+		String name = file.getName().toLowerCase();
+		try {
+			if (name.endsWith(".mp3")) {
+				return readMP3(file);
+			} else if (name.endsWith(".flac")) {
+				return readFlac(file);
+			}
+		} catch (Exception e) {
+			// The full read will run into the same problem and report it properly
+		}
+		return null;
+	}
+
+	private static Metadata readMP3(File file) throws Exception {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(ID3_HEADER_LENGTH);
+			if (!readFully(channel, header) || header.get(0) != 'I' || header.get(1) != 'D' || header.get(2) != '3') {
+				return null; // No ID3v2 tag, the full read is cheap anyway
+			}
+			int majorVersion = header.get(3);
+			int flags = header.get(5) & 0xFF;
+			// Whole-tag unsynchronisation and extended headers are rare, leave them to jaudiotagger
+			if ((majorVersion != 3 && majorVersion != 4) || (flags & 0xC0) != 0) {
+				return null;
+			}
+			int tagLength = syncSafe(header, 6);
+			if (ID3_HEADER_LENGTH + tagLength > channel.size()) {
+				return null; // Corrupt size, let the full read deal with it
+			}
+			long audioStart = ID3_HEADER_LENGTH + tagLength + ((flags & 0x10) != 0 ? 10 : 0);
+
+			// Only the text frames are kept, which are usually a tiny part of the tag
+			ByteArrayOutputStream frames = new ByteArrayOutputStream();
+			ByteBuffer frameHeader = ByteBuffer.allocate(ID3_FRAME_HEADER_LENGTH);
+			long tagEnd = ID3_HEADER_LENGTH + tagLength;
+			while (channel.position() + ID3_FRAME_HEADER_LENGTH <= tagEnd) {
+				frameHeader.clear();
+				if (!readFully(channel, frameHeader)) {
+					break;
+				}
+				if (isPadding(frameHeader)) {
+					// Zeros in the middle of a frame look the same, so make sure it runs to the end
+					if (!isPaddingToEnd(channel, tagEnd)) {
+						return null;
+					}
+					break;
+				}
+				if (!isFrameId(frameHeader)) {
+					// Usually a v2.4 tag written with plain frame sizes, which puts us in the middle of a
+					// frame. The full read knows how to recover from that.
+					return null;
+				}
+				int frameLength = majorVersion == 4 ? syncSafe(frameHeader, 4) : frameHeader.getInt(4);
+				if (frameLength < 0 || channel.position() + frameLength > tagEnd) {
+					return null;
+				}
+				boolean isPicture = frameHeader.get(0) == 'A' && frameHeader.get(1) == 'P' 
+						&& frameHeader.get(2) == 'I' && frameHeader.get(3) == 'C';
+				if (isPicture) {
+					channel.position(channel.position() + frameLength);
+				} else {
+					frames.write(frameHeader.array());
+					ByteBuffer frameData = ByteBuffer.allocate(frameLength);
+					if (!readFully(channel, frameData)) {
+						return null;
+					}
+					frames.write(frameData.array());
+				}
+			}
+
+			ByteBuffer tagBytes = ByteBuffer.allocate(ID3_HEADER_LENGTH + frames.size());
+			tagBytes.put(header.array(), 0, 6);
+			putSyncSafe(tagBytes, frames.size());
+			tagBytes.put(frames.toByteArray());
+			tagBytes.flip();
+			Tag tag = majorVersion == 4 ? new ID3v24Tag(tagBytes, file.getName()) : new ID3v23Tag(tagBytes, file.getName());
+
+			return new Metadata(new MP3AudioHeader(file, audioStart), tag);
+		}
+	}
+
+	private static boolean isPadding(ByteBuffer frameHeader) {
+		for (int k = 0; k < ID3_FRAME_HEADER_LENGTH; k++) {
+			if (frameHeader.get(k) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPaddingToEnd(FileChannel channel, long tagEnd) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		while (channel.position() < tagEnd) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), tagEnd - channel.position()));
+			if (!readFully(channel, buffer)) {
+				return false;
+			}
+			for (int k = 0; k < buffer.limit(); k++) {
+				if (buffer.get(k) != 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isFrameId(ByteBuffer frameHeader) {
+		for (int k = 0; k < 4; k++) {
+			byte b = frameHeader.get(k);
+			if (!(b >= 'A' && b <= 'Z') && !(b >= '0' && b <= '9')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Metadata readFlac(File file) throws Exception {
+		VorbisCommentTag vorbisTag = null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			new FlacStreamReader(channel, file.getName()).findStream();
+			boolean isLastBlock = false;
+			while (!isLastBlock) {
+				MetadataBlockHeader blockHeader = MetadataBlockHeader.readHeader(channel);
+				if (channel.position() + blockHeader.getDataLength() > channel.size()) {
+					return null;
+				}
+				if (blockHeader.getBlockType() == BlockType.VORBIS_COMMENT) {
+					ByteBuffer comment = ByteBuffer.allocate(blockHeader.getDataLength());
+					if (!readFully(channel, comment)) {
+						return null;
+					}
+					vorbisTag = new VorbisCommentReader().read(comment.array(), false);
+				} else {
+					channel.position(channel.position() + blockHeader.getDataLength());
+				}
+				isLastBlock = blockHeader.isLastBlock();
+			}
+		}
+		if (vorbisTag == null) {
+			vorbisTag = VorbisCommentTag.createNewTag();
+		}
+		return new Metadata(new FlacInfoReader().read(file.toPath()), new FlacTag(vorbisTag, new ArrayList<>()));
+	}
+
+	private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int syncSafe(ByteBuffer buffer, int offset) {
+		return ((buffer.get(offset) & 0x7F) << 21) | ((buffer.get(offset + 1) & 0x7F) << 14)
+				| ((buffer.get(offset + 2) & 0x7F) << 7) | (buffer.get(offset + 3) & 0x7F);
+	}
+
+	private static void putSyncSafe(ByteBuffer buffer, int value) {
+		buffer.put((byte) ((value >> 21) & 0x7F));
+		buffer.put((byte) ((value >> 14) & 0x7F));
+		buffer.put((byte) ((value >> 7) & 0x7F));
+		buffer.put((byte) (value & 0x7F));
+	}
+}
@@ -0,0 +1,95 @@
+package net.joshuad.hypnos.library;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+// Finds tracks and albums whose files have disappeared from disk. Directories the disk watcher
+// is watching are skipped, since it will tell us when things in them are deleted. The rest are
+// checked a few at a time, with one directory listing per directory rather than a stat per file,
+// so a large library on a network mount doesn't get hammered.
+class MissingFileVerifier {
+	private static final int MAX_DIRECTORIES_PER_PASS = 16;
+	private static final long MAX_PASS_MS = 25;
+	private static final long MIN_ROUND_INTERVAL_MS = 60 * 1000;
+	// When everything was being watched last time, there's rarely anything new to check
+	private static final long EMPTY_ROUND_INTERVAL_MS = 5 * 60 * 1000;
+
+	private final Library library;
+	private final LibraryScanLogger scanLogger;
+	private final Queue<Path> directoriesToVerify = new ArrayDeque<>();
+	private long lastRoundStartMS = 0;
+	private boolean lastRoundEmpty = false;
+
+	MissingFileVerifier(Library library, LibraryScanLogger scanLogger) {
+		this.library = library;
+		this.scanLogger = scanLogger;
+	}
+
+	// Checks the next few directories, starting a new round through the library when the last one
+	// is done and enough time has passed
+	void verifySome() {
+		if (directoriesToVerify.isEmpty()) {
+			long sinceLastRoundMS = System.currentTimeMillis() - lastRoundStartMS;
+			if (sinceLastRoundMS < (lastRoundEmpty ? EMPTY_ROUND_INTERVAL_MS : MIN_ROUND_INTERVAL_MS)) {
+				return;
+			}
+			startRound();
+		}
+		long startMS = System.currentTimeMillis();
+		List<Track> missingTracks = new ArrayList<>();
+		List<Album> missingAlbums = new ArrayList<>();
+		for (int k = 0; k < MAX_DIRECTORIES_PER_PASS && !directoriesToVerify.isEmpty(); k++) {
+			if (System.currentTimeMillis() - startMS > MAX_PASS_MS) {
+				break;
+			}
+			verifyDirectory(directoriesToVerify.poll(), missingTracks, missingAlbums);
+		}
+		for (Album album : missingAlbums) {
+			scanLogger.println("[LibraryLoader] Album pruned, directory missing from disk: " + album.getPath());
+		}
+		library.removeAlbums(missingAlbums);
+		for (Track track : missingTracks) {
+			scanLogger.println("[LibraryLoader] Track pruned, file missing from disk: " + track.getPath());
+		}
+		library.removeTracks(missingTracks);
+	}
+
+	private void startRound() {
+		Set<Path> directories = new HashSet<>(library.getTrackDirectories());
+		directories.addAll(library.getAlbumDirectories());
+		directories.removeAll(library.getDiskWatcher().getWatchedDirectories());
+		directoriesToVerify.addAll(directories);
+		lastRoundStartMS = System.currentTimeMillis();
+		lastRoundEmpty = directories.isEmpty();
+	}
+
+	private void verifyDirectory(Path directory, List<Track> missingTracks, List<Album> missingAlbums) {
+		Set<Path> children = new HashSet<>();
+		boolean directoryExists = true;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path child : stream) {
+				children.add(child.toAbsolutePath());
+			}
+		} catch (IOException e) {
+			// Covers the directory being gone, or being a file now. Either way nothing we know of is in it.
+			directoryExists = false;
+		}
+		for (Track track : library.getTracksInDirectory(directory)) {
+			if (!directoryExists || !children.contains(track.getPath().toAbsolutePath())) {
+				missingTracks.add(track);
+			}
+		}
+		Album album = library.getAlbum(directory);
+		if (album != null && !directoryExists) {
+			missingAlbums.add(album);
+		}
+	}
+}
@@ -3,9 +3,12 @@ package net.joshuad.hypnos.library;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
 
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -14,6 +17,11 @@ public class MusicRoot implements Serializable {
 	private static final long serialVersionUID = 1L;
 	private File file;
 	private boolean needsInitialScan = true;
+	private long directoryCount = -1; //From the last complete scan, used to show scan progress
+	//Directories finished by an initial scan that hasn't completed yet, so it can pick up where it left off.
+	//Once a directory is finished its subdirectories are dropped, it covers them. 
+	private HashSet<String> scanCheckpoint = null;
+	private long scanCheckpointDirectoryCount = 0;
 	private transient boolean needsRescan = false;
 	@SuppressWarnings("unused")
 	private boolean failedScan = false; //TODO: Show this in the UI
@@ -45,6 +53,42 @@ public class MusicRoot implements Serializable {
 		return needsRescan;
 	}
 	
+	public long getDirectoryCount() {
+		return directoryCount;
+	}
+	
+	public void setDirectoryCount( long directoryCount ) {
+		this.directoryCount = directoryCount;
+	}
+	
+	synchronized boolean hasScanCheckpoint() {
+		return scanCheckpoint != null && !scanCheckpoint.isEmpty();
+	}
+	
+	synchronized boolean isCheckpointed( Path directory ) {
+		return scanCheckpoint != null && scanCheckpoint.contains( directory.toAbsolutePath().toString() );
+	}
+	
+	synchronized long getScanCheckpointDirectoryCount() {
+		return scanCheckpointDirectoryCount;
+	}
+	
+	synchronized void checkpointDirectory( Path directory, List<Path> children ) {
+		if ( scanCheckpoint == null ) {
+			scanCheckpoint = new HashSet<>();
+		}
+		for ( Path child : children ) {
+			scanCheckpoint.remove( child.toAbsolutePath().toString() );
+		}
+		scanCheckpoint.add( directory.toAbsolutePath().toString() );
+		scanCheckpointDirectoryCount++;
+	}
+	
+	synchronized void clearScanCheckpoint() {
+		scanCheckpoint = null;
+		scanCheckpointDirectoryCount = 0;
+	}
+	
 	public void setHadInotifyError( boolean hadError ) {
 		this.hadInotifyError = hadError;
 	}
@@ -72,6 +116,11 @@ public class MusicRoot implements Serializable {
 		}
 	}
 	
+	//Synchronized so the scan can't change the checkpoint while the persister is writing it
+	private synchronized void writeObject ( ObjectOutputStream out ) throws IOException {
+		out.defaultWriteObject();
+	}
+	
 	private void readObject ( ObjectInputStream in ) throws IOException, ClassNotFoundException {
 		in.defaultReadObject();
 		isValidSearchLocation = new SimpleBooleanProperty ( true );
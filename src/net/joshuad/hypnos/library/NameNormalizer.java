@@ -0,0 +1,106 @@
+package net.joshuad.hypnos.library;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import me.xdrop.fuzzywuzzy.FuzzySearch;
+
+// Produces the same keys as Utils.prepareArtistForCompare and prepareAlbumForCompare, for the
+// many comparisons album and artist detection make during a scan. The patterns are compiled once,
+// each is only run if the string has the character it looks for, the single character
+// substitutions are done in one pass, and keys are remembered since every track of an album
+// asks for the same ones.
+class NameNormalizer {
+	private static final int MAX_CACHED_KEYS = 50000;
+
+	private static final Pattern SPACED_AMPERSAND = Pattern.compile(" & ", Pattern.LITERAL);
+	private static final Pattern AMPERSAND = Pattern.compile("&", Pattern.LITERAL);
+	private static final Pattern SPACED_PLUS = Pattern.compile(" + ", Pattern.LITERAL);
+	private static final Pattern PLUS = Pattern.compile("+", Pattern.LITERAL);
+	private static final Pattern DOUBLE_SPACE = Pattern.compile("  ", Pattern.LITERAL);
+	private static final Pattern INNER_THE = Pattern.compile(" the ", Pattern.LITERAL);
+	private static final Pattern LEADING_THE = Pattern.compile("^the ");
+	private static final Pattern TRAILING_THE = Pattern.compile(", the$");
+	private static final String AND = Matcher.quoteReplacement(" and ");
+
+	private static final Map<String, String> artistKeys = new ConcurrentHashMap<>();
+	private static final Map<String, String> albumKeys = new ConcurrentHashMap<>();
+
+	static String artistKey(String name) {
+		String key = artistKeys.get(name);
+		if (key == null) {
+			key = normalizeArtist(name);
+			cache(artistKeys, name, key);
+		}
+		return key;
+	}
+
+	static String albumKey(String name) {
+		String key = albumKeys.get(name);
+		if (key == null) {
+			key = name.toLowerCase();
+			cache(albumKeys, name, key);
+		}
+		return key;
+	}
+
+	// Whether two keys name the same thing, identical keys don't need a fuzzy comparison
+	static boolean keysMatch(String a, String b) {
+		if (a.equals(b)) {
+			return true;
+		}
+		// We usually use weighted ratio, but that can return 0 for names like ()
+		// even if the strings are nearly identical. In that case, we switch to straight ratio.
+		int matchPercent = FuzzySearch.weightedRatio(a, b);
+		if (matchPercent == 0) {
+			matchPercent = FuzzySearch.ratio(a, b);
+		}
+		return matchPercent >= 90;
+	}
+
+	private static void cache(Map<String, String> keys, String name, String key) {
+		if (keys.size() >= MAX_CACHED_KEYS) {
+			keys.clear();
+		}
+		keys.put(name, key);
+	}
+
+	// The same steps in the same order as Utils.prepareArtistForCompare
+	private static String normalizeArtist(String name) {
+		String string = name.toLowerCase();
+		if (string.indexOf('&') >= 0) {
+			string = SPACED_AMPERSAND.matcher(string).replaceAll(AND);
+			string = AMPERSAND.matcher(string).replaceAll(AND);
+		}
+		if (string.indexOf('+') >= 0) {
+			string = SPACED_PLUS.matcher(string).replaceAll(AND);
+			string = PLUS.matcher(string).replaceAll(AND);
+		}
+		if (string.contains("  ")) {
+			string = DOUBLE_SPACE.matcher(string).replaceAll(" ");
+		}
+		if (string.contains("the")) {
+			string = INNER_THE.matcher(string).replaceAll("");
+			string = LEADING_THE.matcher(string).replaceAll("");
+			string = TRAILING_THE.matcher(string).replaceAll("");
+		}
+		StringBuilder builder = null;
+		for (int k = 0; k < string.length(); k++) {
+			char c = string.charAt(k);
+			if (c == '-' || c == '.' || c == '_') {
+				if (builder == null) {
+					builder = new StringBuilder(string.length());
+					builder.append(string, 0, k);
+				}
+				if (c != '.') {
+					builder.append(' ');
+				}
+			} else if (builder != null) {
+				builder.append(c);
+			}
+		}
+		return builder == null ? string : builder.toString();
+	}
+}
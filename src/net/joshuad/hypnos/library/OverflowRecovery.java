@@ -0,0 +1,126 @@
+package net.joshuad.hypnos.library;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.joshuad.hypnos.Utils;
+
+// When the watch service drops events for a directory, compares what's on disk under it with the
+// fingerprints the library last read and queues only what differs. Subdirectories with a watch of
+// their own heard their own events, so they're left alone; on a full queue overflow every key is
+// told, so each directory still gets looked at once.
+class OverflowRecovery extends SimpleFileVisitor<Path> {
+	private static final Logger LOGGER = Logger.getLogger(OverflowRecovery.class.getName());
+
+	private final Library library;
+	private final WatchRegistry watched;
+	private final Consumer<Path> queueUpdate;
+	private final LibraryScanLogger scanLogger;
+
+	private Path recoveryRoot = null;
+	// For each open directory, the library's tracks in it that haven't been seen on disk yet
+	private final Deque<Map<Path, Track>> unseenTracks = new ArrayDeque<>();
+	private final Deque<Boolean> directoryChanged = new ArrayDeque<>();
+	private int changeCount = 0;
+
+	OverflowRecovery(Library library, WatchRegistry watched, Consumer<Path> queueUpdate, LibraryScanLogger scanLogger) {
+		this.library = library;
+		this.watched = watched;
+		this.queueUpdate = queueUpdate;
+		this.scanLogger = scanLogger;
+	}
+
+	void recover(Path directory) {
+		recoveryRoot = directory.toAbsolutePath();
+		unseenTracks.clear();
+		directoryChanged.clear();
+		changeCount = 0;
+		scanLogger.println("[Watcher] Events were dropped, checking for changes under: " + recoveryRoot);
+		if (!Files.isDirectory(recoveryRoot)) {
+			queueUpdate.accept(recoveryRoot);
+			return;
+		}
+		try {
+			Files.walkFileTree(recoveryRoot, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, this);
+		} catch (IOException e) {
+			LOGGER.log(Level.INFO, "Unable to check for dropped changes, rescanning: " + recoveryRoot, e);
+			queueUpdate.accept(recoveryRoot);
+			return;
+		}
+		scanLogger.println("[Watcher] Queued " + changeCount + " changed path(s) under: " + recoveryRoot);
+	}
+
+	@Override
+	public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+		if (!dir.equals(recoveryRoot)) {
+			if (watched.contains(dir)) {
+				return FileVisitResult.SKIP_SUBTREE;
+			}
+			if (library.getTracksAtOrBelow(dir).isEmpty()) {
+				// Nothing of ours in here, so it's new or has no music. A rescan picks up all of it.
+				queue(dir);
+				return FileVisitResult.SKIP_SUBTREE;
+			}
+		}
+		Map<Path, Track> tracks = new HashMap<>();
+		for (Track track : library.getTracksInDirectory(dir)) {
+			tracks.put(track.getPath().toAbsolutePath(), track);
+		}
+		unseenTracks.push(tracks);
+		directoryChanged.push(false);
+		return FileVisitResult.CONTINUE;
+	}
+
+	@Override
+	public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+		Track track = unseenTracks.peek().remove(file.toAbsolutePath());
+		if (track == null) {
+			if (Utils.isMusicFile(file)) {
+				// A new track can change what album the directory is
+				directoryChanged.pop();
+				directoryChanged.push(true);
+			}
+		} else if (!track.fingerprintMatches(attrs)) {
+			queue(file);
+		}
+		return FileVisitResult.CONTINUE;
+	}
+
+	@Override
+	public FileVisitResult visitFileFailed(Path file, IOException exception) {
+		return FileVisitResult.CONTINUE;
+	}
+
+	@Override
+	public FileVisitResult postVisitDirectory(Path dir, IOException exception) {
+		Map<Path, Track> missing = unseenTracks.pop();
+		boolean changed = directoryChanged.pop();
+		// The directory is only rescanned when something was added, otherwise removing what's gone
+		// is all there is to do
+		for (Path path : missing.keySet()) {
+			queue(path);
+		}
+		if (changed) {
+			queue(dir);
+		}
+		return FileVisitResult.CONTINUE;
+	}
+
+	private void queue(Path path) {
+		changeCount++;
+		queueUpdate.accept(path);
+	}
+}
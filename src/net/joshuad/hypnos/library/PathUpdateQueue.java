@@ -0,0 +1,99 @@
+package net.joshuad.hypnos.library;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Paths waiting to be rescanned. A path is only queued once, and a path under a queued directory
+// isn't queued at all, since rescanning the directory covers it. Queueing a directory drops the
+// paths already queued under it. Priority paths are handed out before everything else.
+class PathUpdateQueue {
+	// Queued path -> whether it has priority
+	private final Map<Path, Boolean> queued = new HashMap<>();
+	// How many queued paths are below each directory, so we know when there's something to drop
+	private final Map<Path, Integer> queuedBelow = new HashMap<>();
+	// These can hold paths that have since been dropped or promoted; they're skipped when polled
+	private final Deque<Path> priorityOrder = new ArrayDeque<>();
+	private final Deque<Path> normalOrder = new ArrayDeque<>();
+
+	synchronized void offer(Path path, boolean priority) {
+		path = path.toAbsolutePath();
+		Path covering = findQueuedAtOrAbove(path);
+		if (covering != null) {
+			if (priority && !queued.get(covering)) {
+				queued.put(covering, true);
+				priorityOrder.add(covering);
+			}
+			return;
+		}
+		if (queuedBelow.containsKey(path)) {
+			Iterator<Map.Entry<Path, Boolean>> iterator = queued.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Path, Boolean> entry = iterator.next();
+				if (entry.getKey().startsWith(path)) {
+					priority |= entry.getValue();
+					iterator.remove();
+					countBelow(entry.getKey(), -1);
+				}
+			}
+		}
+		queued.put(path, priority);
+		countBelow(path, 1);
+		(priority ? priorityOrder : normalOrder).add(path);
+	}
+
+	synchronized Path poll() {
+		Path path = poll(priorityOrder);
+		return path != null ? path : poll(normalOrder);
+	}
+
+	synchronized boolean isEmpty() {
+		return queued.isEmpty();
+	}
+
+	// For paths that have been rescanned some other way
+	synchronized void remove(Path path) {
+		path = path.toAbsolutePath();
+		if (queued.remove(path) != null) {
+			countBelow(path, -1);
+		}
+	}
+
+	private Path poll(Deque<Path> order) {
+		while (!order.isEmpty()) {
+			Path path = order.poll();
+			if (queued.remove(path) != null) {
+				countBelow(path, -1);
+				return path;
+			}
+		}
+		return null;
+	}
+
+	private Path findQueuedAtOrAbove(Path path) {
+		Path test = path;
+		while (test != null) {
+			if (queued.containsKey(test)) {
+				return test;
+			}
+			test = test.getParent();
+		}
+		return null;
+	}
+
+	private void countBelow(Path path, int change) {
+		Path parent = path.getParent();
+		while (parent != null) {
+			int count = queuedBelow.getOrDefault(parent, 0) + change;
+			if (count <= 0) {
+				queuedBelow.remove(parent);
+			} else {
+				queuedBelow.put(parent, count);
+			}
+			parent = parent.getParent();
+		}
+	}
+}
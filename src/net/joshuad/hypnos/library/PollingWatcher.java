@@ -0,0 +1,237 @@
+package net.joshuad.hypnos.library;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Finds changes by looking, for music roots the watch service can't cover: network mounts, which
+// never send events, and roots where we ran out of inotify watches. A directory's mtime changes
+// when something is added, removed or renamed in it, and its tracks' fingerprints show edits.
+// Directories that just changed are looked at again soon, ones that keep not changing less and
+// less often, and only a few are looked at per loader pass.
+class PollingWatcher {
+	private static final Logger LOGGER = Logger.getLogger(PollingWatcher.class.getName());
+	private static final long MIN_INTERVAL_MS = 2000;
+	private static final long INITIAL_INTERVAL_MS = 30000;
+	private static final long MAX_INTERVAL_MS = 10 * 60 * 1000;
+	private static final int MAX_DIRECTORIES_PER_PASS = 16;
+	private static final long MAX_PASS_MS = 25;
+	private static final Set<String> NETWORK_STORE_TYPES = Set.of(
+			"nfs", "nfs4", "cifs", "smb", "smbfs", "smb3", "afpfs", "webdav", "davfs", "fuse.sshfs", "9p");
+
+	private static class PolledDirectory {
+		final Path path;
+		long modifiedMS;
+		long intervalMS = INITIAL_INTERVAL_MS;
+		long nextPollMS;
+		boolean removed = false;
+		// Where a poll that ran out of time left off in the directory's tracks
+		int resumeAt = 0;
+		boolean changedSoFar = false;
+
+		PolledDirectory(Path path, long modifiedMS, long nextPollMS) {
+			this.path = path;
+			this.modifiedMS = modifiedMS;
+			this.nextPollMS = nextPollMS;
+		}
+	}
+
+	private final Library library;
+	private final Consumer<Path> queueUpdate;
+	private final LibraryScanLogger scanLogger;
+	private final Set<Path> pollingRoots = new HashSet<>();
+	private final Set<Path> checkedRoots = new HashSet<>();
+	private final TreeMap<Path, PolledDirectory> directories = new TreeMap<>(WatchRegistry.BY_NAME_ELEMENTS);
+	private final PriorityQueue<PolledDirectory> pollOrder = new PriorityQueue<>(
+			(a, b) -> Long.compare(a.nextPollMS, b.nextPollMS));
+
+	PollingWatcher(Library library, Consumer<Path> queueUpdate, LibraryScanLogger scanLogger) {
+		this.library = library;
+		this.queueUpdate = queueUpdate;
+		this.scanLogger = scanLogger;
+	}
+
+	// The first time we see a root, decides whether it's on a network mount and needs polling
+	void checkRoot(Path rootPath) {
+		rootPath = rootPath.toAbsolutePath();
+		synchronized (this) {
+			if (!checkedRoots.add(rootPath)) {
+				return;
+			}
+		}
+		try {
+			FileStore store = Files.getFileStore(rootPath);
+			if (NETWORK_STORE_TYPES.contains(store.type().toLowerCase())) {
+				startPolling(rootPath, "it is on a " + store.type() + " mount");
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.INFO, "Unable to tell what kind of file system this is, assuming it's local: " + rootPath, e);
+		}
+	}
+
+	synchronized void startPolling(Path rootPath, String reason) {
+		if (pollingRoots.add(rootPath.toAbsolutePath())) {
+			scanLogger.println("[Watcher] Polling for changes under " + rootPath + " because " + reason);
+		}
+	}
+
+	synchronized boolean isPolling(Path directory) {
+		Path test = directory.toAbsolutePath();
+		while (test != null) {
+			if (pollingRoots.contains(test)) {
+				return true;
+			}
+			test = test.getParent();
+		}
+		return false;
+	}
+
+	void add(Path directory) {
+		directory = directory.toAbsolutePath();
+		long modifiedMS;
+		try {
+			modifiedMS = Files.getLastModifiedTime(directory).toMillis();
+		} catch (IOException e) {
+			return;
+		}
+		// Spread out, so a freshly scanned root isn't all polled at once
+		long nextPollMS = System.currentTimeMillis() + INITIAL_INTERVAL_MS 
+				+ ThreadLocalRandom.current().nextLong(INITIAL_INTERVAL_MS);
+		synchronized (this) {
+			if (!directories.containsKey(directory)) {
+				PolledDirectory polled = new PolledDirectory(directory, modifiedMS, nextPollMS);
+				directories.put(directory, polled);
+				pollOrder.add(polled);
+			}
+		}
+	}
+
+	synchronized int removeSubtree(Path directory) {
+		directory = directory.toAbsolutePath();
+		int removedCount = 0;
+		Iterator<Map.Entry<Path, PolledDirectory>> iterator = directories.tailMap(directory, true).entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, PolledDirectory> entry = iterator.next();
+			if (!entry.getKey().startsWith(directory)) {
+				break;
+			}
+			entry.getValue().removed = true;
+			iterator.remove();
+			removedCount++;
+		}
+		// Left in pollOrder, they're dropped when they come up
+		return removedCount;
+	}
+
+	synchronized Set<Path> getDirectories() {
+		return new HashSet<>(directories.keySet());
+	}
+
+	// Polls the directories that are due, up to a few per call
+	void pollSome() {
+		long deadlineMS = System.currentTimeMillis() + MAX_PASS_MS;
+		for (int k = 0; k < MAX_DIRECTORIES_PER_PASS; k++) {
+			if (System.currentTimeMillis() > deadlineMS) {
+				break;
+			}
+			PolledDirectory polled;
+			synchronized (this) {
+				polled = pollOrder.peek();
+				if (polled == null || polled.nextPollMS > System.currentTimeMillis()) {
+					break;
+				}
+				pollOrder.poll();
+				if (polled.removed) {
+					continue;
+				}
+			}
+			poll(polled, deadlineMS);
+		}
+	}
+
+	private void poll(PolledDirectory polled, long deadlineMS) {
+		List<Path> changed = new ArrayList<>();
+		boolean finished = true;
+		long modifiedMS;
+		try {
+			modifiedMS = Files.getLastModifiedTime(polled.path).toMillis();
+		} catch (IOException e) {
+			// Gone, the rescan will clear it out of the library
+			removeSubtree(polled.path);
+			queueUpdate.accept(polled.path);
+			return;
+		}
+		if (modifiedMS != polled.modifiedMS) {
+			polled.modifiedMS = modifiedMS;
+			// The rescan also removes tracks that are gone
+			changed.add(polled.path);
+		} else {
+			// A big directory on a slow mount can take longer than a pass, so it's done over several.
+			// If its tracks change in between some may be skipped, they're looked at next time.
+			List<Track> tracks = library.getTracksInDirectory(polled.path);
+			for (int k = polled.resumeAt; k < tracks.size(); k++) {
+				Track track = tracks.get(k);
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(track.getPath(), BasicFileAttributes.class);
+					if (!track.fingerprintMatches(attributes)) {
+						changed.add(track.getPath());
+					}
+				} catch (IOException e) {
+					changed.add(track.getPath());
+				}
+				if (k + 1 < tracks.size() && System.currentTimeMillis() > deadlineMS) {
+					polled.resumeAt = k + 1;
+					finished = false;
+					break;
+				}
+			}
+		}
+		for (Path path : changed) {
+			queueUpdate.accept(path);
+		}
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (polled.removed) {
+				return;
+			}
+			if (!finished) {
+				// Due right away, so the next pass picks it back up
+				polled.changedSoFar |= !changed.isEmpty();
+				polled.nextPollMS = now;
+				pollOrder.add(polled);
+				return;
+			}
+			boolean anyChanged = polled.changedSoFar || !changed.isEmpty();
+			polled.resumeAt = 0;
+			polled.changedSoFar = false;
+			if (!anyChanged) {
+				polled.intervalMS = Math.min(MAX_INTERVAL_MS, polled.intervalMS * 2);
+			} else {
+				polled.intervalMS = MIN_INTERVAL_MS;
+				// New directories show up as a change to their parent
+				PolledDirectory parent = directories.get(polled.path.getParent());
+				if (parent != null && pollOrder.remove(parent)) {
+					parent.intervalMS = MIN_INTERVAL_MS;
+					parent.nextPollMS = Math.min(parent.nextPollMS, now + MIN_INTERVAL_MS);
+					pollOrder.add(parent);
+				}
+			}
+			polled.nextPollMS = now + polled.intervalMS;
+			pollOrder.add(polled);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package net.joshuad.hypnos.library;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Splits library items up by the music root they were found under. Checking whether an item
+// still has a root is a lookup of its partition, and only the items of roots that have been
+// removed need to be looked at again when the roots change.
+class RootPartitions<T> {
+	private final Function<T, Path> pathOf;
+	private final Map<Path, Set<T>> itemsByRoot = new HashMap<>();
+	private final Map<T, Path> rootOfItem = new IdentityHashMap<>();
+	private final Set<T> unrooted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	RootPartitions(Function<T, Path> pathOf) {
+		this.pathOf = pathOf;
+	}
+
+	synchronized void add(T item, Set<Path> rootPaths) {
+		remove(item);
+		file(item, findRoot(pathOf.apply(item), rootPaths));
+	}
+
+	synchronized void remove(T item) {
+		Path root = rootOfItem.remove(item);
+		if (root == null) {
+			unrooted.remove(item);
+			return;
+		}
+		Set<T> items = itemsByRoot.get(root);
+		if (items != null) {
+			items.remove(item);
+			if (items.isEmpty()) {
+				itemsByRoot.remove(root);
+			}
+		}
+	}
+
+	synchronized void clear() {
+		itemsByRoot.clear();
+		rootOfItem.clear();
+		unrooted.clear();
+	}
+
+	// Items belonging to roots that are no longer in rootPaths are moved to whichever remaining
+	// root covers them, if any. The ones no root covers are returned.
+	synchronized List<T> findOrphans(Set<Path> rootPaths) {
+		List<T> stranded = new ArrayList<>(unrooted);
+		unrooted.clear();
+		Iterator<Map.Entry<Path, Set<T>>> iterator = itemsByRoot.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, Set<T>> entry = iterator.next();
+			if (!rootPaths.contains(entry.getKey())) {
+				for (T item : entry.getValue()) {
+					rootOfItem.remove(item);
+					stranded.add(item);
+				}
+				iterator.remove();
+			}
+		}
+		List<T> retMe = new ArrayList<>();
+		for (T item : stranded) {
+			Path root = findRoot(pathOf.apply(item), rootPaths);
+			if (root == null) {
+				retMe.add(item);
+			}
+			file(item, root);
+		}
+		return retMe;
+	}
+
+	private void file(T item, Path root) {
+		if (root == null) {
+			unrooted.add(item);
+		} else {
+			rootOfItem.put(item, root);
+			itemsByRoot.computeIfAbsent(root, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(item);
+		}
+	}
+
+	// The deepest root at or above path, so nested roots each keep their own items
+	private static Path findRoot(Path path, Set<Path> rootPaths) {
+		Path test = path.toAbsolutePath();
+		while (test != null) {
+			if (rootPaths.contains(test)) {
+				return test;
+			}
+			test = test.getParent();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,185 @@
+package net.joshuad.hypnos.library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.joshuad.hypnos.fxui.FXUI;
+
+// Scans music roots on different devices at the same time, so a slow network share doesn't hold
+// up a local disk. Each file store gets its own DiskReader and thread, and scans its roots one
+// after another, since reading one disk from several places at once only makes it seek more.
+class ScanCoordinator {
+	private static final Logger LOGGER = Logger.getLogger(ScanCoordinator.class.getName());
+
+	private class StoreScanner {
+		final DiskReader diskReader = new DiskReader(library, loader, scanLogger);
+		List<MusicRoot> roots = new ArrayList<>();
+		volatile boolean scanning = false;
+
+		boolean isScanning() {
+			return scanning;
+		}
+
+		void start(String storeName, List<MusicRoot> roots) {
+			this.roots = roots;
+			diskReader.setUI(ui);
+			scanning = true;
+			Thread thread = new Thread(() -> {
+				try {
+					for (MusicRoot root : roots) {
+						if (root.needsInitialScan() && isStillARoot(root)) {
+							diskReader.scanMusicRoot(root, DiskReader.ScanMode.INITIAL_SCAN);
+						}
+					}
+					for (MusicRoot root : roots) {
+						if (root.needsRescan() && isStillARoot(root)) {
+							diskReader.scanMusicRoot(root, DiskReader.ScanMode.RESCAN);
+						}
+					}
+				} catch (Exception e) {
+					LOGGER.log(Level.INFO, "Caught an unhandled exception while scanning " + storeName + ".", e);
+				} finally {
+					// Cleared first, so anyone who sees the count go up also sees this store as done
+					scanning = false;
+					finishedScanCount.incrementAndGet();
+				}
+			});
+			thread.setName("Library Scanner (" + storeName + ")");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		// roots is a snapshot from when the scan started, so it can include roots removed since
+		private boolean isStillARoot(MusicRoot root) {
+			return library.getMusicRootData().contains(root);
+		}
+
+		boolean isScanning(MusicRoot root) {
+			return scanning && roots.contains(root);
+		}
+	}
+
+	private final Map<Object, StoreScanner> scanners = new HashMap<>();
+	// Finding a root's store stats it, which can hang on a stalled network share, so it's done once
+	private final Map<Path, Object> storesByRoot = new HashMap<>();
+	private final AtomicInteger finishedScanCount = new AtomicInteger();
+	private final Library library;
+	private final LibraryLoader loader;
+	private final LibraryScanLogger scanLogger;
+	private FXUI ui;
+
+	ScanCoordinator(Library library, LibraryLoader loader, LibraryScanLogger scanLogger) {
+		this.library = library;
+		this.loader = loader;
+		this.scanLogger = scanLogger;
+	}
+
+	synchronized void setUI(FXUI ui) {
+		this.ui = ui;
+		for (StoreScanner scanner : scanners.values()) {
+			scanner.diskReader.setUI(ui);
+		}
+	}
+
+	// Starts a scan on every store that has roots waiting and isn't being scanned already
+	synchronized void startScans(List<MusicRoot> musicRoots) {
+		Map<Object, List<MusicRoot>> rootsByStore = new LinkedHashMap<>();
+		Map<Object, String> storeNames = new HashMap<>();
+		List<Path> rootPaths = new ArrayList<>();
+		for (MusicRoot root : musicRoots) {
+			rootPaths.add(root.getPath());
+		}
+		storesByRoot.keySet().retainAll(rootPaths);
+		for (MusicRoot root : musicRoots) {
+			if (!root.needsInitialScan() && !root.needsRescan()) {
+				continue;
+			}
+			if (isBeingScanned(root)) {
+				// Its flags stay set until the walk ends
+				continue;
+			}
+			Object store = storesByRoot.get(root.getPath());
+			String storeName;
+			if (store != null) {
+				storeName = store.toString();
+			} else {
+				try {
+					store = Files.getFileStore(root.getPath());
+					storeName = store.toString();
+					storesByRoot.put(root.getPath(), store);
+				} catch (IOException e) {
+					// Most likely missing, the scan will report it. Keep it from holding up anything else.
+					store = root.getPath();
+					storeName = root.getPath().toString();
+				}
+			}
+			rootsByStore.computeIfAbsent(store, k -> new ArrayList<>()).add(root);
+			storeNames.put(store, storeName);
+		}
+		for (Map.Entry<Object, List<MusicRoot>> entry : rootsByStore.entrySet()) {
+			StoreScanner scanner = scanners.computeIfAbsent(entry.getKey(), k -> new StoreScanner());
+			if (!scanner.isScanning()) {
+				scanLogger.println("[ScanCoordinator] Starting scan of " + entry.getValue().size() + " root(s) on " 
+						+ storeNames.get(entry.getKey()));
+				scanner.start(storeNames.get(entry.getKey()), entry.getValue());
+			}
+		}
+	}
+
+	private boolean isBeingScanned(MusicRoot root) {
+		for (StoreScanner scanner : scanners.values()) {
+			if (scanner.isScanning(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	synchronized boolean isScanning() {
+		for (StoreScanner scanner : scanners.values()) {
+			if (scanner.isScanning()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Whether path overlaps a root that is being scanned right now
+	synchronized boolean isScanning(Path path) {
+		path = path.toAbsolutePath();
+		for (StoreScanner scanner : scanners.values()) {
+			if (scanner.isScanning()) {
+				for (MusicRoot root : scanner.roots) {
+					Path rootPath = root.getPath().toAbsolutePath();
+					if (path.startsWith(rootPath) || rootPath.startsWith(path)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	// Goes up each time a store finishes its scans
+	int getFinishedScanCount() {
+		return finishedScanCount.get();
+	}
+
+	// Stops the scan of a root that is being removed, leaving other roots' scans running
+	synchronized void interrupt(MusicRoot root) {
+		for (StoreScanner scanner : scanners.values()) {
+			if (scanner.isScanning(root)) {
+				scanner.diskReader.interrupt(root);
+			}
+		}
+	}
+}
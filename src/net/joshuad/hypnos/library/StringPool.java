@@ -0,0 +1,30 @@
+package net.joshuad.hypnos.library;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Hands out one shared instance of each distinct string, so the artist, album and format
+// strings repeated across every track of an album are only held in memory once. Entries
+// are weak, so a string no track uses anymore can still be reclaimed.
+class StringPool {
+	private static final Map<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+	static String get(String string) {
+		if (string == null) {
+			return null;
+		}
+		if (string.isEmpty()) {
+			return "";
+		}
+		synchronized (pool) {
+			WeakReference<String> reference = pool.get(string);
+			String pooled = reference == null ? null : reference.get();
+			if (pooled == null) {
+				pool.put(string, new WeakReference<>(string));
+				pooled = string;
+			}
+			return pooled;
+		}
+	}
+}
@@ -12,7 +12,9 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
 import java.util.logging.Level;
@@ -34,8 +36,6 @@ import org.jaudiotagger.tag.images.Artwork;
 import org.jaudiotagger.tag.images.StandardArtwork;
 
 import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
@@ -118,18 +118,26 @@ public class Track implements Serializable, AlbumInfoSource {
 	private boolean isVBR = false;
 	private String encodingType = "";
 	private String format = "";
+	//Size, modified time and file key of the file when its tags were last read, so a rescan can 
+	//skip files that haven't changed
+	private long fingerprintSize = -1;
+	private long fingerprintModified = -1;
+	private int fingerprintFileKey = 0;
 	private Album album = null;
-	private transient StringProperty artist;
-	private transient StringProperty albumArtist;
-	private transient StringProperty title;
-	private transient StringProperty albumTitle;
-	private transient StringProperty date;
-	private transient StringProperty originalDate;
-	private transient IntegerProperty trackNumber;
-	private transient StringProperty discSubtitle;
-	private transient IntegerProperty discNumber;
-	private transient IntegerProperty discCount;
-	private transient StringProperty releaseType;
+	private transient String artist;
+	private transient String albumArtist;
+	private transient String title;
+	private transient String albumTitle;
+	private transient String date;
+	private transient String originalDate;
+	private transient int trackNumber;
+	private transient String discSubtitle;
+	private transient int discNumber;
+	private transient int discCount;
+	private transient String releaseType;
+	//Only created once a table cell or editor asks for a property, most tracks never need them
+	private transient TrackProperties properties;
+	//Null while the track has no tag errors, which is most of them
 	private Vector <TagError> tagErrors;
 	private transient LovedState lovedState;
 	private boolean logTagErrors;
@@ -164,25 +172,27 @@ public class Track implements Serializable, AlbumInfoSource {
 		this.length = track.length;
 		this.trackFile = track.trackFile;
 		this.album = track.album;
-		this.artist.set(track.artist.get());
-		this.title.set(track.title.get());
-		this.albumTitle.set(track.albumTitle.get());
-		this.date.set(track.date.get());
-		this.originalDate.set(track.originalDate.get());
-		this.trackNumber.set(track.trackNumber.get());
-		this.discSubtitle.set(track.discSubtitle.get());
-		this.discNumber.set(track.discNumber.get());
-		this.discCount.set(track.discCount.get());
-		this.releaseType.set(track.releaseType.get());
+		setArtist(track.artist);
+		setTitle(track.title);
+		setAlbumTitle(track.albumTitle);
+		this.date = track.date;
+		this.originalDate = track.originalDate;
+		setTrackNumber(track.trackNumber);
+		this.discSubtitle = track.discSubtitle;
+		this.discNumber = track.discNumber;
+		this.discCount = track.discCount;
+		this.releaseType = track.releaseType;
 		this.isLossless = track.isLossless;
 		this.bitRate = track.bitRate;
 		this.sampleRate = track.sampleRate;
 		this.isVBR = track.isVBR;
 		this.encodingType = track.encodingType;
 		this.format = track.format;
-		this.tagErrors.clear();
-		this.tagErrors.addAll(track.tagErrors);	
+		this.tagErrors = track.tagErrors == null ? null : new Vector <TagError> ( track.tagErrors );
 		this.logTagErrors = track.logTagErrors;
+		this.fingerprintSize = track.fingerprintSize;
+		this.fingerprintModified = track.fingerprintModified;
+		this.fingerprintFileKey = track.fingerprintFileKey;
 	}
 
 	public void setAlbum( Album album ) {
@@ -194,25 +204,45 @@ public class Track implements Serializable, AlbumInfoSource {
 	}
 		
 	public List <TagError> getTagErrors () {
+		if ( tagErrors == null ) {
+			return Collections.emptyList();
+		}
 		return tagErrors;
 	}
 	
+	private void addTagError ( TagError error ) {
+		if ( tagErrors == null ) {
+			tagErrors = new Vector <TagError> ();
+		}
+		tagErrors.add( error );
+	}
+	
 	public void refreshTagData() {
 		Tag tag = null;
 		Logger.getLogger( "org.jaudiotagger" ).setLevel( Level.OFF ); 
+		//Taken before reading, so a file that changes while we read it is read again next time
+		updateFingerprint();
 		try {
-			AudioFile audioFile = getAudioFile();
-			AudioHeader audioHeader = audioFile.getAudioHeader();
+			AudioHeader audioHeader;
+			//Skips embedded pictures where it can, otherwise we do a full read
+			MetadataReader.Metadata metadata = MetadataReader.read( trackFile );
+			if ( metadata != null ) {
+				audioHeader = metadata.audioHeader;
+				tag = metadata.tag;
+			} else {
+				AudioFile audioFile = getAudioFile();
+				audioHeader = audioFile.getAudioHeader();
+				tag = audioFile.getTag();
+			}
 			length = audioHeader.getTrackLength();
-			tag = audioFile.getTag();
 			isLossless = audioHeader.isLossless();
 			bitRate = audioHeader.getBitRateAsNumber();
 			sampleRate = audioHeader.getSampleRateAsNumber();
 			isVBR = audioHeader.isVariableBitRate();
-			encodingType = audioHeader.getEncodingType();
-			format = audioHeader.getFormat();
-			Hypnos.getLibrary().removeTagErrors(tagErrors);
-			tagErrors.clear();
+			encodingType = StringPool.get(audioHeader.getEncodingType());
+			format = StringPool.get(audioHeader.getFormat());
+			Hypnos.getLibrary().removeTagErrors(getTagErrors());
+			tagErrors = null;
 			parseArtist( tag );
 			parseTitle( tag ); 
 			parseAlbum( tag );
@@ -221,14 +251,39 @@ public class Track implements Serializable, AlbumInfoSource {
 			parseDiscInfo( tag );
 			parseReleaseType( tag );	
 		} catch ( Exception e ) {
-			tagErrors.add( new TagError ( TagErrorType.CANNOT_READ_TAG, this ) );
+			addTagError( new TagError ( TagErrorType.CANNOT_READ_TAG, this ) );
 		}
 		parseFileName();
 		if(this.logTagErrors) {
-			Hypnos.getLibrary().addTagErrors(tagErrors);
+			Hypnos.getLibrary().addTagErrors(getTagErrors());
+		}
+	}
+	
+	private void updateFingerprint() {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes( trackFile.toPath(), BasicFileAttributes.class );
+			fingerprintSize = attributes.size();
+			fingerprintModified = attributes.lastModifiedTime().toMillis();
+			fingerprintFileKey = fileKeyHash( attributes );
+		} catch ( Exception e ) {
+			fingerprintSize = -1;
+			fingerprintModified = -1;
+			fingerprintFileKey = 0;
 		}
 	}
 	
+	private static int fileKeyHash ( BasicFileAttributes attributes ) {
+		Object fileKey = attributes.fileKey();
+		return fileKey == null ? 0 : fileKey.hashCode();
+	}
+	
+	boolean fingerprintMatches ( BasicFileAttributes attributes ) {
+		return fingerprintSize >= 0
+			&& fingerprintSize == attributes.size()
+			&& fingerprintModified == attributes.lastModifiedTime().toMillis()
+			&& fingerprintFileKey == fileKeyHash( attributes );
+	}
+	
 	private AudioFile getAudioFile() throws IOException, CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException {
 		int i = trackFile.toString().lastIndexOf('.');
 		String extension = "";
@@ -281,34 +336,34 @@ public class Track implements Serializable, AlbumInfoSource {
 			//PENDING: We get an exception with albums that have [] and maybe {} in their directory structure 
 		}
 		//TODO: Add some error checking, only do this if we're pretty sure it's good. 
-		if ( artist.get().equals( "" ) && !filenameArtist.equals( "" ) ) { artist.set(filenameArtist); }
-		if ( albumArtist.get().equals( "" ) && !filenameArtist.equals( "" ) ) { albumArtist.set(filenameArtist); }
-		if ( albumTitle.get().equals( "" ) && !filenameAlbum.equals( "" ) ) { albumTitle.set(filenameAlbum); }
-		if ( date.get().equals( "" ) && !filenameYear.equals( "" ) ) { date.set(filenameYear); }
-		if ( title.get().equals( "" ) && !filenameTitle.equals( "" )  ) { title.set(filenameTitle); }
+		if ( artist.equals( "" ) && !filenameArtist.equals( "" ) ) { setArtist(StringPool.get(filenameArtist)); }
+		if ( albumArtist.equals( "" ) && !filenameArtist.equals( "" ) ) { setAlbumArtist(StringPool.get(filenameArtist)); }
+		if ( albumTitle.equals( "" ) && !filenameAlbum.equals( "" ) ) { setAlbumTitle(StringPool.get(filenameAlbum)); }
+		if ( date.equals( "" ) && !filenameYear.equals( "" ) ) { date = StringPool.get(filenameYear); }
+		if ( title.equals( "" ) && !filenameTitle.equals( "" )  ) { setTitle(filenameTitle); }
 	}
 	
 	private void parseArtist( Tag tag ) {
 		// Do we want to do antyhing with FieldKey.ARTISTS or .ALBUM_ARTISTS or .ALBUM_ARTIST_SORT?
 		if ( tag != null ) {
-			albumArtist.set(tag.getFirst ( FieldKey.ALBUM_ARTIST ));
-			artist.set(tag.getFirst ( FieldKey.ARTIST ));
+			setAlbumArtist(StringPool.get(tag.getFirst ( FieldKey.ALBUM_ARTIST )));
+			setArtist(StringPool.get(tag.getFirst ( FieldKey.ARTIST )));
 		}
-		if ( albumArtist.get().equals( "" ) ) {
-			albumArtist.set(artist.get());
+		if ( albumArtist.equals( "" ) ) {
+			setAlbumArtist(artist);
 		}
-		if ( artist.get().equals( "" ) ) {
-			tagErrors.add( new TagError ( TagErrorType.MISSING_ARTIST, this ) );
+		if ( artist.equals( "" ) ) {
+			addTagError( new TagError ( TagErrorType.MISSING_ARTIST, this ) );
 		}
 	}
 	
 	private void parseTitle ( Tag tag ) {
 		if ( tag != null ) {
-			title.set(tag.getFirst ( FieldKey.TITLE ));
+			setTitle(tag.getFirst ( FieldKey.TITLE ));
 			try { 
-				if ( title.get().equals( "" ) ) {
-					tagErrors.add( new TagError ( TagErrorType.MISSING_TITLE, this ) );
-					title.set(tag.getFirst( FieldKey.TITLE_SORT ));
+				if ( title.equals( "" ) ) {
+					addTagError( new TagError ( TagErrorType.MISSING_TITLE, this ) );
+					setTitle(tag.getFirst( FieldKey.TITLE_SORT ));
 				}
 			} catch ( UnsupportedOperationException e ) {
 				//No problem, it doesn't exist for this file format
@@ -318,11 +373,11 @@ public class Track implements Serializable, AlbumInfoSource {
 	
 	private void parseAlbum ( Tag tag ) {
 		if ( tag != null ) {
-			albumTitle.set(tag.getFirst ( FieldKey.ALBUM ));
+			setAlbumTitle(StringPool.get(tag.getFirst ( FieldKey.ALBUM )));
 			try { 
-				if ( albumTitle.get().equals( "" ) ) {
-					tagErrors.add( new TagError ( TagErrorType.MISSING_ALBUM, this ) );
-					albumTitle.set(tag.getFirst( FieldKey.ALBUM_SORT ));
+				if ( albumTitle.equals( "" ) ) {
+					addTagError( new TagError ( TagErrorType.MISSING_ALBUM, this ) );
+					setAlbumTitle(StringPool.get(tag.getFirst( FieldKey.ALBUM_SORT )));
 				}
 			} catch ( UnsupportedOperationException e ) {}
 		}
@@ -331,18 +386,18 @@ public class Track implements Serializable, AlbumInfoSource {
 	private void parseDate ( Tag tag ) {
 		if ( tag != null ) {
 			try { 
-				originalDate.set(tag.getFirst ( FieldKey.ORIGINAL_YEAR ));
+				originalDate = StringPool.get(tag.getFirst ( FieldKey.ORIGINAL_YEAR ));
 			} catch ( UnsupportedOperationException e ) {
 				//Do nothing
 			}
 			try { 
-				date.set(tag.getFirst( FieldKey.YEAR ));
+				date = StringPool.get(tag.getFirst( FieldKey.YEAR ));
 			} catch ( UnsupportedOperationException e ) {
 				//Do nothing
 			}
 		}
-		if ( date.get().equals( "" ) ) {
-			tagErrors.add( new TagError ( TagErrorType.MISSING_DATE, this ) );
+		if ( date.equals( "" ) ) {
+			addTagError( new TagError ( TagErrorType.MISSING_DATE, this ) );
 		}
 	}
 	
@@ -352,22 +407,22 @@ public class Track implements Serializable, AlbumInfoSource {
 			String rawNoWhiteSpace = rawText.replaceAll("\\s+","");
 			try { 
 				if ( rawText.matches( "^[0-9]+$" ) ) { // 0, 01, 1010, 2134141, etc.
-					trackNumber.set(Integer.parseInt( rawText ));
+					setTrackNumber(Integer.parseInt( rawText ));
 				} else if ( rawNoWhiteSpace.matches( "^[0-9]+$" ) ) { 
-					trackNumber.set(Integer.parseInt( rawNoWhiteSpace ));
-					tagErrors.add( new TagError ( TagErrorType.TRACK_NUMBER_EXCESS_WHITESPACE, this ) );
+					setTrackNumber(Integer.parseInt( rawNoWhiteSpace ));
+					addTagError( new TagError ( TagErrorType.TRACK_NUMBER_EXCESS_WHITESPACE, this ) );
 				} else if ( rawText.matches("^[0-9]+/.*") ) {
-					trackNumber.set(Integer.parseInt( rawText.split("/")[0] ));
-					tagErrors.add( new TagError ( TagErrorType.TRACK_NUMBER_HAS_DISC, this ) );
+					setTrackNumber(Integer.parseInt( rawText.split("/")[0] ));
+					addTagError( new TagError ( TagErrorType.TRACK_NUMBER_HAS_DISC, this ) );
 				} else if ( rawNoWhiteSpace.matches("^[0-9]+/.*") ) {
-					trackNumber.set(Integer.parseInt( rawNoWhiteSpace.split("/")[0] ));
-					tagErrors.add( new TagError ( TagErrorType.TRACK_NUMBER_HAS_DISC, this ) );
+					setTrackNumber(Integer.parseInt( rawNoWhiteSpace.split("/")[0] ));
+					addTagError( new TagError ( TagErrorType.TRACK_NUMBER_HAS_DISC, this ) );
 				} else {
 					throw new NumberFormatException();
 				}
 			} catch ( NumberFormatException e ) {
 				if ( ! rawNoWhiteSpace.equals( "" ) ) {
-					tagErrors.add( new TagError ( TagErrorType.TRACK_NUMBER_INVALID_FORMAT, this, rawText ) );
+					addTagError( new TagError ( TagErrorType.TRACK_NUMBER_INVALID_FORMAT, this, rawText ) );
 				}
 			}
 		}
@@ -376,15 +431,15 @@ public class Track implements Serializable, AlbumInfoSource {
 	private void parseDiscInfo ( Tag tag ) {
 		if ( tag != null ) {
 			try {
-				discSubtitle.set(tag.getFirst ( FieldKey.DISC_SUBTITLE ));
+				discSubtitle = StringPool.get(tag.getFirst ( FieldKey.DISC_SUBTITLE ));
 			} catch ( UnsupportedOperationException e ) {
 				//No problem, it doesn't exist for this file format
 			}
 			try {
-				discCount.set(Integer.valueOf( tag.getFirst ( FieldKey.DISC_TOTAL ) ));
+				discCount = Integer.valueOf( tag.getFirst ( FieldKey.DISC_TOTAL ) );
 			} catch ( NumberFormatException e ) {
 				if ( ! tag.getFirst ( FieldKey.DISC_TOTAL ).equals( "" ) ) {
-					tagErrors.add( new TagError ( TagErrorType.DISC_COUNT_INVALID_FORMAT, this , tag.getFirst ( FieldKey.DISC_TOTAL ) ) );
+					addTagError( new TagError ( TagErrorType.DISC_COUNT_INVALID_FORMAT, this , tag.getFirst ( FieldKey.DISC_TOTAL ) ) );
 				}
 			} catch ( UnsupportedOperationException e ) {
 				//No problem, it doesn't exist for this file format
@@ -395,29 +450,23 @@ public class Track implements Serializable, AlbumInfoSource {
 				rawText = tag.getFirst ( FieldKey.DISC_NO );
 				rawNoWhiteSpace = rawText.replaceAll("\\s+","");
 				if ( rawText.matches( "^[0-9]+$" ) ) { // 0, 01, 1010, 2134141, etc.
-					discNumber.set(Integer.parseInt( rawText ));
+					discNumber = Integer.parseInt( rawText );
 				} else if ( rawNoWhiteSpace.matches( "^[0-9]+$" ) ) { 
-					discNumber.set(Integer.parseInt( rawNoWhiteSpace ));
-					tagErrors.add( new TagError ( TagErrorType.DISC_NUMBER_EXCESS_WHITESPACE, this ) );
+					discNumber = Integer.parseInt( rawNoWhiteSpace );
+					addTagError( new TagError ( TagErrorType.DISC_NUMBER_EXCESS_WHITESPACE, this ) );
 				} else if ( rawText.matches("^[0-9]+/.*") ) {//if matches 23/<whatever>
-					discNumber.set(Integer.parseInt( rawText.split("/")[0] ));
-					if ( discCount == null ) {
-						discCount.set(Integer.parseInt( rawText.split("/")[1] ));
-					}
-					tagErrors.add( new TagError ( TagErrorType.DISC_NUMBER_HAS_TRACK, this ) );
+					discNumber = Integer.parseInt( rawText.split("/")[0] );
+					addTagError( new TagError ( TagErrorType.DISC_NUMBER_HAS_TRACK, this ) );
 				} else if ( rawNoWhiteSpace.matches("^[0-9]+/.*") ) {
 					//if matches 23/<whatever>
-					discNumber.set(Integer.parseInt( rawNoWhiteSpace.split("/")[0] ));
-					if ( discCount == null ) {
-						discCount.set(Integer.parseInt( rawNoWhiteSpace.split("/")[1] ));
-					}
-					tagErrors.add( new TagError ( TagErrorType.DISC_NUMBER_HAS_TRACK, this ) );
+					discNumber = Integer.parseInt( rawNoWhiteSpace.split("/")[0] );
+					addTagError( new TagError ( TagErrorType.DISC_NUMBER_HAS_TRACK, this ) );
 				} else {
 					throw new NumberFormatException();
 				}
 			} catch ( NumberFormatException e ) {
 				if ( ! rawNoWhiteSpace.equals( "" ) ) {
-					tagErrors.add( new TagError ( TagErrorType.DISC_NUMBER_INVALID_FORMAT, this, rawText ) );
+					addTagError( new TagError ( TagErrorType.DISC_NUMBER_INVALID_FORMAT, this, rawText ) );
 				}
 			} catch ( UnsupportedOperationException e ) {
 				//No problem, it doesn't exist for this file format
@@ -428,7 +477,7 @@ public class Track implements Serializable, AlbumInfoSource {
 	private void parseReleaseType ( Tag tag ) {
 		if ( tag != null ) {
 			try {
-				releaseType.set(tag.getFirst ( FieldKey.MUSICBRAINZ_RELEASE_TYPE ));
+				releaseType = StringPool.get(tag.getFirst ( FieldKey.MUSICBRAINZ_RELEASE_TYPE ));
 			} catch ( UnsupportedOperationException e ) {
 				//No problem, it doesn't exist for this file format
 			}
@@ -436,86 +485,118 @@ public class Track implements Serializable, AlbumInfoSource {
 	}
 		
 	public String getArtist () {
-		return artist.get();
+		return artist;
 	}
 	
 	public String getAlbumArtist() {
-		return albumArtist.get();
+		return albumArtist;
 	}
 	
 	public String getYear () {
-		if ( !originalDate.get().isEmpty() ) {
-			return originalDate.get();
+		if ( !originalDate.isEmpty() ) {
+			return originalDate;
 		} else {
-			return date.get();
+			return date;
 		}
 	}
 	
 	public String getAlbumTitle () {
-		return albumTitle.get();
+		return albumTitle;
 	}
 	
 	public String getFullAlbumTitle () {
-		String retMe = albumTitle.get();
-		if ( discSubtitle != null && !discSubtitle.get().equals( "" ) ) {
+		String retMe = albumTitle;
+		if ( discSubtitle != null && !discSubtitle.equals( "" ) ) {
 			retMe += " (" + discSubtitle + ")";
-		} else if ( discCount != null && discCount.get() > 1 ) {
-			if ( discNumber != null ) retMe += " (Disc " + discNumber + ")";
-		} else if ( discNumber != null && discNumber.get() > 1 ) { 
+		} else if ( discCount > 1 ) {
+			retMe += " (Disc " + discNumber + ")";
+		} else if ( discNumber > 1 ) { 
 			retMe += " (Disc " + discNumber + ")";
 		}
-		if ( releaseType.get() != null && !releaseType.get().equals("") && !releaseType.get().matches( "(?i:album)" ) ) {
-			retMe += " [" + Utils.toReleaseTitleCase( releaseType.get() ) + "]";
+		if ( releaseType != null && !releaseType.equals("") && !releaseType.matches( "(?i:album)" ) ) {
+			retMe += " [" + Utils.toReleaseTitleCase( releaseType ) + "]";
 		}
 		return retMe;
 	}		
 	
 	public Integer getDiscNumber() {
-		return discNumber.get();
+		return discNumber;
 	}
 	
 	public Integer getDiscCount() {
-		return discCount.get();
+		return discCount;
 	}
 	
 	public String getReleaseType () {
-		if ( releaseType.get() != null && !releaseType.get().matches( "(?i:album)" ) ) {
-			return Utils.toReleaseTitleCase( releaseType.get() );
+		if ( releaseType != null && !releaseType.matches( "(?i:album)" ) ) {
+			return Utils.toReleaseTitleCase( releaseType );
 		} else {
 			return null;
 		}
 	}
 	
 	public String getDiscSubtitle () {
-		return discSubtitle.get();
+		return discSubtitle;
+	}
+	
+	private synchronized TrackProperties getProperties() {
+		if ( properties == null ) {
+			properties = new TrackProperties( artist, albumArtist, title, albumTitle, trackNumber );
+		}
+		return properties;
 	}
 	
 	public StringProperty getTitleProperty() {
-		return title;
+		return getProperties().title;
 	}
 	
 	public StringProperty getArtistProperty() {
-		return artist;
+		return getProperties().artist;
 	}
 	
 	public StringProperty getAlbumArtistProperty() {
-		return albumArtist;
+		return getProperties().albumArtist;
 	}
 	
 	public StringProperty getAlbumTitleProperty() {
-		return albumTitle;
+		return getProperties().albumTitle;
 	}
 	
 	public IntegerProperty getTrackNumberProperty() {
-		return trackNumber;
+		return getProperties().trackNumber;
+	}
+	
+	private synchronized void setArtist ( String artist ) {
+		this.artist = artist;
+		if ( properties != null ) properties.artist.set( artist );
+	}
+	
+	private synchronized void setAlbumArtist ( String albumArtist ) {
+		this.albumArtist = albumArtist;
+		if ( properties != null ) properties.albumArtist.set( albumArtist );
+	}
+	
+	private synchronized void setTitle ( String title ) {
+		this.title = title;
+		if ( properties != null ) properties.title.set( title );
+	}
+	
+	private synchronized void setAlbumTitle ( String albumTitle ) {
+		this.albumTitle = albumTitle;
+		if ( properties != null ) properties.albumTitle.set( albumTitle );
+	}
+	
+	private synchronized void setTrackNumber ( int trackNumber ) {
+		this.trackNumber = trackNumber;
+		if ( properties != null ) properties.trackNumber.set( trackNumber );
 	}
 	
 	public String getTitle () {
-		return title.get();
+		return title;
 	}
 	
 	public Integer getTrackNumber () {
-		return trackNumber.get();
+		return trackNumber;
 	}	
 	
 	public int getLengthS () {
@@ -965,33 +1046,38 @@ public class Track implements Serializable, AlbumInfoSource {
 	
 	private void writeObject ( ObjectOutputStream out ) throws IOException {
 		out.defaultWriteObject();
-		out.writeObject(artist.get());
-		out.writeObject(albumArtist.get());
-		out.writeObject(title.get());
-		out.writeObject(albumTitle.get());
-		out.writeObject(date.get());
-		out.writeObject(originalDate.get());
-		out.writeInt(trackNumber.get());
-		out.writeObject(discSubtitle.get());
-		out.writeInt(discNumber.get());
-		out.writeInt(discCount.get());
-		out.writeObject(releaseType.get());
+		out.writeObject(artist);
+		out.writeObject(albumArtist);
+		out.writeObject(title);
+		out.writeObject(albumTitle);
+		out.writeObject(date);
+		out.writeObject(originalDate);
+		out.writeInt(trackNumber);
+		out.writeObject(discSubtitle);
+		out.writeInt(discNumber);
+		out.writeInt(discCount);
+		out.writeObject(releaseType);
 	}
 	
 	private void readObject ( ObjectInputStream in ) throws IOException, ClassNotFoundException {
 		initializeTransientFields();
 		in.defaultReadObject();
-		artist.set((String)in.readObject());
-		albumArtist.set((String)in.readObject());
-		title.set((String)in.readObject());
-		albumTitle.set((String)in.readObject());
-		date.set((String)in.readObject());
-		originalDate.set((String)in.readObject());
-		trackNumber.set(in.readInt());
-		discSubtitle.set((String)in.readObject());
-		discNumber.set(in.readInt());
-		discCount.set(in.readInt());
-		releaseType.set((String)in.readObject());
+		if ( tagErrors != null && tagErrors.isEmpty() ) {
+			tagErrors = null;
+		}
+		encodingType = StringPool.get(encodingType);
+		format = StringPool.get(format);
+		artist = StringPool.get((String)in.readObject());
+		albumArtist = StringPool.get((String)in.readObject());
+		title = (String)in.readObject();
+		albumTitle = StringPool.get((String)in.readObject());
+		date = StringPool.get((String)in.readObject());
+		originalDate = StringPool.get((String)in.readObject());
+		trackNumber = in.readInt();
+		discSubtitle = StringPool.get((String)in.readObject());
+		discNumber = in.readInt();
+		discCount = in.readInt();
+		releaseType = StringPool.get((String)in.readObject());
 	}
 
 	public LovedState getLovedState () {
@@ -1003,18 +1089,18 @@ public class Track implements Serializable, AlbumInfoSource {
 	}
 	
 	private void initializeTransientFields() {
-		artist = new SimpleStringProperty("");
-		albumArtist = new SimpleStringProperty("");
-		title = new SimpleStringProperty("");
-		albumTitle = new SimpleStringProperty("");
-		date = new SimpleStringProperty("");
-		originalDate = new SimpleStringProperty("");
-		trackNumber = new SimpleIntegerProperty(NO_TRACK_NUMBER);
-		discSubtitle = new SimpleStringProperty("");
-		discNumber = new SimpleIntegerProperty();
-		discCount = new SimpleIntegerProperty();
-		releaseType = new SimpleStringProperty("");
-		tagErrors = new Vector <TagError> ();
+		artist = "";
+		albumArtist = "";
+		title = "";
+		albumTitle = "";
+		date = "";
+		originalDate = "";
+		trackNumber = NO_TRACK_NUMBER;
+		discSubtitle = "";
+		discNumber = 0;
+		discCount = 0;
+		releaseType = "";
+		tagErrors = null;
 		lovedState = LovedState.NOT_SET;
 	}
 }
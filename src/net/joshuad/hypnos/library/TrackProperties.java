@@ -0,0 +1,24 @@
+package net.joshuad.hypnos.library;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+// The observable side of a Track, for the fields the UI binds to. Track keeps its data in
+// plain fields and only creates one of these when something asks for a property.
+class TrackProperties {
+	final StringProperty artist;
+	final StringProperty albumArtist;
+	final StringProperty title;
+	final StringProperty albumTitle;
+	final IntegerProperty trackNumber;
+
+	TrackProperties(String artist, String albumArtist, String title, String albumTitle, int trackNumber) {
+		this.artist = new SimpleStringProperty(artist);
+		this.albumArtist = new SimpleStringProperty(albumArtist);
+		this.title = new SimpleStringProperty(title);
+		this.albumTitle = new SimpleStringProperty(albumTitle);
+		this.trackNumber = new SimpleIntegerProperty(trackNumber);
+	}
+}
@@ -0,0 +1,88 @@
+package net.joshuad.hypnos.library;
+
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// The directories we're watching and their watch keys, looked up either way. Paths are sorted
+// name by name, so everything under a directory sits right after it and a subtree can be
+// removed without looking at the rest. Lookups don't lock; changes are made under this lock so
+// the two maps agree.
+class WatchRegistry {
+	static final Comparator<Path> BY_NAME_ELEMENTS = (a, b) -> {
+		Path aRoot = a.getRoot(), bRoot = b.getRoot();
+		if (aRoot != bRoot) {
+			if (aRoot == null || bRoot == null) {
+				return aRoot == null ? -1 : 1;
+			}
+			int rootCompare = aRoot.compareTo(bRoot);
+			if (rootCompare != 0) {
+				return rootCompare;
+			}
+		}
+		int nameCount = Math.min(a.getNameCount(), b.getNameCount());
+		for (int k = 0; k < nameCount; k++) {
+			int nameCompare = a.getName(k).compareTo(b.getName(k));
+			if (nameCompare != 0) {
+				return nameCompare;
+			}
+		}
+		return Integer.compare(a.getNameCount(), b.getNameCount());
+	};
+
+	private final Map<WatchKey, Path> pathsByKey = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListMap<Path, WatchKey> keysByPath = new ConcurrentSkipListMap<>(BY_NAME_ELEMENTS);
+
+	boolean contains(Path directory) {
+		return keysByPath.containsKey(directory.toAbsolutePath());
+	}
+
+	Path getPath(WatchKey key) {
+		return pathsByKey.get(key);
+	}
+
+	synchronized void put(Path directory, WatchKey key) {
+		directory = directory.toAbsolutePath();
+		WatchKey previous = keysByPath.put(directory, key);
+		if (previous != null && previous != key) {
+			pathsByKey.remove(previous);
+		}
+		pathsByKey.put(key, directory);
+	}
+
+	synchronized void remove(WatchKey key) {
+		Path directory = pathsByKey.remove(key);
+		if (directory != null) {
+			keysByPath.remove(directory, key);
+		}
+	}
+
+	// Removes directory and everything under it, and returns their keys for cancelling
+	synchronized List<WatchKey> removeSubtree(Path directory) {
+		directory = directory.toAbsolutePath();
+		List<WatchKey> retMe = new ArrayList<>();
+		Iterator<Map.Entry<Path, WatchKey>> iterator = keysByPath.tailMap(directory, true).entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, WatchKey> entry = iterator.next();
+			if (!entry.getKey().startsWith(directory)) {
+				break;
+			}
+			retMe.add(entry.getValue());
+			pathsByKey.remove(entry.getValue());
+			iterator.remove();
+		}
+		return retMe;
+	}
+
+	Set<Path> getPaths() {
+		return new HashSet<>(keysByPath.keySet());
+	}
+}